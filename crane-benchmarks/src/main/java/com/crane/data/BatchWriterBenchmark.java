@@ -0,0 +1,105 @@
+package com.crane.data;
+
+import com.crane.data.annotation.AutoGenerated;
+import com.crane.data.annotation.Entity;
+import com.crane.data.annotation.Id;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert throughput of {@link BatchWriter} in rows per second, by chunk size, as JDBC batches and
+ * as multi-row {@code VALUES} statements. IDs are generated by the database, so the numbers include
+ * reading generated keys back per chunk.
+ *
+ * <pre>
+ * java -jar crane-benchmarks/target/benchmarks.jar BatchWriterBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchWriterBenchmark {
+
+  static final int ROWS = 50_000;
+
+  @Entity(table = "batch_row")
+  public static class BatchRow {
+    @Id
+    @AutoGenerated
+    private Long id;
+    private String name;
+    private Integer quantity;
+
+    public BatchRow() {
+    }
+  }
+
+  public static class BatchRowRepository extends JdbcRepository<BatchRow, Long> {
+    public BatchRowRepository() {
+      super(BatchRow.class);
+    }
+  }
+
+  @Param({"100", "1000", "10000"})
+  public int chunkSize;
+
+  @Param({"false", "true"})
+  public boolean multiRowInsert;
+
+  private Connection conn;
+  private BatchWriter<BatchRow> writer;
+  private List<BatchRow> rows;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    conn = H2Fixture.open("batch",
+        "CREATE TABLE batch_row (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(64),"
+            + " quantity INT)");
+    writer = new BatchRowRepository().batchWriter()
+        .chunkSize(chunkSize)
+        .multiRowInsert(multiRowInsert);
+  }
+
+  @Setup(Level.Invocation)
+  public void newRows() throws SQLException {
+    H2Fixture.execute(conn, "TRUNCATE TABLE batch_row");
+    rows = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      BatchRow row = new BatchRow();
+      row.name = "row-" + i;
+      row.quantity = i % 100;
+      rows.add(row);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    H2Fixture.close(conn);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long insert() throws SQLException {
+    return writer.insert(conn, rows);
+  }
+}
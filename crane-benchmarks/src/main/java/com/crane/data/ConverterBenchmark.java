@@ -0,0 +1,111 @@
+package com.crane.data;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading 100k rows of mixed column types into Java values: readers resolved once per (JDBC type,
+ * Java type) pair by {@link ColumnConverters} against {@code getObject} plus
+ * {@link SqlUtil#convertType} per value. Both read the same result set, so the difference is the
+ * conversion alone.
+ *
+ * <pre>
+ * java -jar crane-benchmarks/target/benchmarks.jar ConverterBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+
+  static final int ROWS = 100_000;
+
+  public enum Status {
+    NEW, ACTIVE, CLOSED
+  }
+
+  /**
+   * Java type each selected column is read as, in column order. {@code convertType} cannot unbox
+   * a {@code Boolean}, so that column is read boxed by both paths.
+   */
+  private static final Class<?>[] TYPES = {
+      long.class, int.class, Long.class, BigDecimal.class, Boolean.class, Status.class,
+      LocalDateTime.class, String.class
+  };
+
+  private static final String SQL = "SELECT id, quantity, version, price, active, status,"
+      + " created_at, name FROM converted_row";
+
+  private Connection conn;
+  private ColumnReader[] readers;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    conn = H2Fixture.open("converter",
+        "CREATE TABLE converted_row (id BIGINT PRIMARY KEY, quantity INT, version BIGINT,"
+            + " price DECIMAL(12, 2), active BOOLEAN, status VARCHAR(16), created_at TIMESTAMP,"
+            + " name VARCHAR(64))",
+        "INSERT INTO converted_row SELECT X, MOD(X, 100), X * 3, X / 100.0, MOD(X, 2) = 0,"
+            + " CASEWHEN(MOD(X, 3) = 0, 'NEW', CASEWHEN(MOD(X, 3) = 1, 'ACTIVE', 'CLOSED')),"
+            + " DATEADD(SECOND, X, TIMESTAMP '2024-01-01 00:00:00'), 'row-' || X"
+            + " FROM SYSTEM_RANGE(1, " + ROWS + ")");
+    try (PreparedStatement stmt = conn.prepareStatement(SQL)) {
+      ResultSetMetaData metaData = stmt.getMetaData();
+      readers = new ColumnReader[TYPES.length];
+      for (int i = 0; i < TYPES.length; i++) {
+        readers[i] = ColumnConverters.reader(metaData.getColumnType(i + 1), TYPES[i]);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    H2Fixture.close(conn);
+  }
+
+  @Benchmark
+  public void registry(Blackhole blackhole) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(SQL);
+        ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        for (int i = 0; i < readers.length; i++) {
+          blackhole.consume(readers[i].read(rs, i + 1));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void convertType(Blackhole blackhole) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(SQL);
+        ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        for (int i = 0; i < TYPES.length; i++) {
+          blackhole.consume(SqlUtil.convertType(rs.getObject(i + 1), TYPES[i]));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.crane.data;
+
+import com.crane.core.ConnectionHolder;
+import com.crane.core.TransactionAwareConnection;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * In-memory H2 database for benchmarks. The connection is bound to the calling thread the way a
+ * transactional route binds it, so repositories reuse it instead of closing it after each call.
+ * Call {@link #open} and {@link #close} from the benchmark thread, e.g. in a trial-level
+ * {@code @Setup}/{@code @TearDown} of a thread-scoped state.
+ */
+final class H2Fixture {
+
+  private H2Fixture() {
+  }
+
+  /**
+   * Create an empty database, run the DDL statements on it and bind its connection
+   */
+  static Connection open(String name, String... ddl) throws SQLException {
+    Connection conn = DriverManager.getConnection("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+        "sa", "");
+    try (Statement stmt = conn.createStatement()) {
+      for (String sql : ddl) {
+        stmt.execute(sql);
+      }
+    }
+    ConnectionHolder.setTransactional(new TransactionAwareConnection(conn));
+    return conn;
+  }
+
+  /**
+   * Run SQL outside the timed part of a benchmark, e.g. to empty a table between iterations
+   */
+  static void execute(Connection conn, String sql) throws SQLException {
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute(sql);
+    }
+  }
+
+  /**
+   * Unbind and drop the database
+   */
+  static void close(Connection conn) throws SQLException {
+    ConnectionHolder.clear();
+    execute(conn, "DROP ALL OBJECTS");
+    conn.close();
+  }
+}
@@ -0,0 +1,137 @@
+package com.crane.data;
+
+import com.crane.core.ConnectionHolder;
+import com.crane.core.jdbc.QueryMetrics;
+import com.crane.data.annotation.Entity;
+import com.crane.data.annotation.Id;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mapping 100k rows into entities: the compiled {@link EntityMeta#rowMapper} against the former
+ * reflective path (name lookups, {@code getObject}, {@link SqlUtil#convertType} and
+ * {@code Field.set} per column), with and without the JDBC statement instrumentation.
+ *
+ * <pre>
+ * mvn -pl crane-benchmarks -am package -DskipTests
+ * java -jar crane-benchmarks/target/benchmarks.jar MappingBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+  static final int ROWS = 100_000;
+
+  /**
+   * Boxed fields only: the reflective path cannot set primitives from boxed column values
+   */
+  @Entity(table = "mapped_row")
+  public static class MappedRow {
+    @Id
+    private Long id;
+    private String name;
+    private Integer quantity;
+    private BigDecimal price;
+    private Boolean active;
+    private LocalDateTime createdAt;
+
+    public MappedRow() {
+    }
+  }
+
+  @Param({"false", "true"})
+  public boolean instrumented;
+
+  private Connection raw;
+  private Connection conn;
+  private EntityMeta<MappedRow> meta;
+  private String sql;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    raw = H2Fixture.open("mapping",
+        "CREATE TABLE mapped_row (id BIGINT PRIMARY KEY, name VARCHAR(64), quantity INT,"
+            + " price DECIMAL(12, 2), active BOOLEAN, created_at TIMESTAMP)",
+        "INSERT INTO mapped_row SELECT X, 'row-' || X, MOD(X, 100), X / 100.0, MOD(X, 2) = 0,"
+            + " DATEADD(SECOND, X, TIMESTAMP '2024-01-01 00:00:00')"
+            + " FROM SYSTEM_RANGE(1, " + ROWS + ")");
+    QueryMetrics.configure(instrumented, 1000);
+    conn = QueryMetrics.instrument(ConnectionHolder.get(), 0);
+    meta = EntityParser.parse(MappedRow.class);
+    sql = meta.statements().selectAll();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    QueryMetrics.configure(true, 1000);
+    H2Fixture.close(raw);
+  }
+
+  @Benchmark
+  public void compiled(Blackhole blackhole) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(sql);
+        ResultSet rs = stmt.executeQuery()) {
+      RowMapper<MappedRow> mapper = meta.rowMapper(rs);
+      while (rs.next()) {
+        blackhole.consume(mapper.map(rs));
+      }
+    }
+  }
+
+  @Benchmark
+  public void reflective(Blackhole blackhole) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(sql);
+        ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        blackhole.consume(reflectiveRow(rs));
+      }
+    }
+  }
+
+  /**
+   * The per-row mapping JdbcRepository used before entity accessors were compiled
+   */
+  private MappedRow reflectiveRow(ResultSet rs) {
+    try {
+      MappedRow instance = meta.type().getDeclaredConstructor().newInstance();
+      for (String column : meta.columns()) {
+        Field field = meta.getField(column);
+        field.setAccessible(true);
+
+        Object value = rs.getObject(column);
+        if (value != null) {
+          value = SqlUtil.convertType(value, field.getType());
+        }
+        field.set(instance, value);
+      }
+      return instance;
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to map row to entity", e);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.crane.data;
+
+import com.crane.data.annotation.AutoGenerated;
+import com.crane.data.annotation.Entity;
+import com.crane.data.annotation.Id;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert throughput in rows per second into a table keyed by a {@code UUID} primary key, with
+ * random (version 4) against time-ordered (version 7) keys. Each invocation starts from an empty
+ * table, so the index grows from nothing to {@value #ROWS} entries while it is measured.
+ *
+ * <pre>
+ * java -jar crane-benchmarks/target/benchmarks.jar UuidBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UuidBenchmark {
+
+  static final int ROWS = 50_000;
+
+  @Entity(table = "random_row")
+  public static class RandomRow {
+    @Id
+    @AutoGenerated(strategy = AutoGenerated.Strategy.UUID)
+    private UUID id;
+    private String name;
+
+    public RandomRow() {
+    }
+  }
+
+  @Entity(table = "ordered_row")
+  public static class OrderedRow {
+    @Id
+    @AutoGenerated(strategy = AutoGenerated.Strategy.UUID_V7)
+    private UUID id;
+    private String name;
+
+    public OrderedRow() {
+    }
+  }
+
+  public static class RandomRowRepository extends JdbcRepository<RandomRow, UUID> {
+    public RandomRowRepository() {
+      super(RandomRow.class);
+    }
+  }
+
+  public static class OrderedRowRepository extends JdbcRepository<OrderedRow, UUID> {
+    public OrderedRowRepository() {
+      super(OrderedRow.class);
+    }
+  }
+
+  @Param({"100", "1000"})
+  public int chunkSize;
+
+  private Connection conn;
+  private BatchWriter<RandomRow> randomWriter;
+  private BatchWriter<OrderedRow> orderedWriter;
+  private List<RandomRow> randomRows;
+  private List<OrderedRow> orderedRows;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    conn = H2Fixture.open("uuid",
+        "CREATE TABLE random_row (id UUID PRIMARY KEY, name VARCHAR(64))",
+        "CREATE TABLE ordered_row (id UUID PRIMARY KEY, name VARCHAR(64))");
+    randomWriter = new RandomRowRepository().batchWriter().chunkSize(chunkSize);
+    orderedWriter = new OrderedRowRepository().batchWriter().chunkSize(chunkSize);
+  }
+
+  @Setup(Level.Invocation)
+  public void newRows() throws SQLException {
+    H2Fixture.execute(conn, "TRUNCATE TABLE random_row");
+    H2Fixture.execute(conn, "TRUNCATE TABLE ordered_row");
+    randomRows = new ArrayList<>(ROWS);
+    orderedRows = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      RandomRow random = new RandomRow();
+      random.name = "row-" + i;
+      randomRows.add(random);
+      OrderedRow ordered = new OrderedRow();
+      ordered.name = "row-" + i;
+      orderedRows.add(ordered);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    H2Fixture.close(conn);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long v4() throws SQLException {
+    return randomWriter.insert(conn, randomRows);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long v7() throws SQLException {
+    return orderedWriter.insert(conn, orderedRows);
+  }
+}
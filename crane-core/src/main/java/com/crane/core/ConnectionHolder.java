@@ -1,10 +1,20 @@
 package com.crane.core;
 
+import com.crane.core.transaction.TransactionSynchronization;
+
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class ConnectionHolder {
     private static final ThreadLocal<Connection> connectionHolder = new ThreadLocal<>();
     private static final ThreadLocal<Boolean> transactionActive = new ThreadLocal<>();
+    private static final ThreadLocal<List<TransactionSynchronization>> synchronizations = new ThreadLocal<>();
+    private static final ThreadLocal<Map<Object, Object>> resources = new ThreadLocal<>();
+    private static final ThreadLocal<Deadline> deadline = new ThreadLocal<>();
+    private static final Object WRITE_BEHIND = new Object();
 
     public static void set(Connection connection) {
         connectionHolder.set(connection);
@@ -29,8 +39,127 @@ public class ConnectionHolder {
         return active != null && active;
     }
 
+    /**
+     * Bind the request deadline. Unlike the connection it survives {@link #suspend()} and
+     * {@link #clear()}, so statements run in a REQUIRES_NEW transaction still honour it.
+     */
+    public static void setDeadline(Deadline requestDeadline) {
+        deadline.set(requestDeadline);
+    }
+
+    public static Deadline getDeadline() {
+        return deadline.get();
+    }
+
+    public static void clearDeadline() {
+        deadline.remove();
+    }
+
+    /**
+     * Register a callback for the completion of the current transaction
+     *
+     * @throws IllegalStateException if no transaction is active
+     */
+    public static void registerSynchronization(TransactionSynchronization synchronization) {
+        if (!isTransactional()) {
+            throw new IllegalStateException("No active transaction to register a synchronization with");
+        }
+        List<TransactionSynchronization> list = synchronizations.get();
+        if (list == null) {
+            list = new ArrayList<>();
+            synchronizations.set(list);
+        }
+        list.add(synchronization);
+    }
+
+    public static List<TransactionSynchronization> getSynchronizations() {
+        List<TransactionSynchronization> list = synchronizations.get();
+        return list == null ? List.of() : list;
+    }
+
+    /**
+     * Invoke {@link TransactionSynchronization#flush()} on the synchronizations of the current
+     * transaction, so writes held back until commit reach the database now
+     */
+    public static void flush() throws Exception {
+        List<TransactionSynchronization> list = synchronizations.get();
+        if (list == null) {
+            return;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            list.get(i).flush();
+        }
+    }
+
+    /**
+     * Let repositories queue the writes of the current transaction until it flushes, see
+     * {@link com.crane.core.transaction.TransactionDefinition#withWriteBehind(boolean)}
+     *
+     * @throws IllegalStateException if no transaction is active
+     */
+    public static void enableWriteBehind() {
+        bindResource(WRITE_BEHIND, Boolean.TRUE);
+    }
+
+    public static boolean isWriteBehind() {
+        return isTransactional() && getResource(WRITE_BEHIND) != null;
+    }
+
+    /**
+     * Bind a value to the current transaction, e.g. per-transaction bookkeeping of a repository.
+     * Resources are dropped when the transaction completes and are suspended with it.
+     *
+     * @throws IllegalStateException if no transaction is active
+     */
+    public static void bindResource(Object key, Object value) {
+        if (!isTransactional()) {
+            throw new IllegalStateException("No active transaction to bind a resource to");
+        }
+        Map<Object, Object> map = resources.get();
+        if (map == null) {
+            map = new HashMap<>();
+            resources.set(map);
+        }
+        map.put(key, value);
+    }
+
+    /**
+     * @return the value bound to the current transaction under {@code key}, or null
+     */
+    public static Object getResource(Object key) {
+        Map<Object, Object> map = resources.get();
+        return map == null ? null : map.get(key);
+    }
+
+    /**
+     * Unbind everything held for the current thread so a new transaction can be started, e.g. for
+     * REQUIRES_NEW propagation. The returned state must be passed to {@link #resume(Suspended)}.
+     */
+    public static Suspended suspend() {
+        Suspended suspended = new Suspended(connectionHolder.get(), transactionActive.get(), synchronizations.get(),
+                resources.get());
+        clear();
+        return suspended;
+    }
+
+    public static void resume(Suspended suspended) {
+        clear();
+        if (suspended.connection() != null) {
+            connectionHolder.set(suspended.connection());
+            transactionActive.set(suspended.transactional());
+            synchronizations.set(suspended.synchronizations());
+            resources.set(suspended.resources());
+        }
+    }
+
     public static void clear() {
         connectionHolder.remove();
         transactionActive.remove();
+        synchronizations.remove();
+        resources.remove();
+    }
+
+    public record Suspended(Connection connection, Boolean transactional,
+                            List<TransactionSynchronization> synchronizations, Map<Object, Object> resources) {
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,44 @@
 package com.crane.core;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class Context {
 
   private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final String FIELD_FILTER = "crane.fields";
+  // Routes every bean through the field filter, which is supplied per response
+  private static final ObjectMapper filteringMapper = objectMapper.copy()
+      .setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+        @Override
+        public Object findFilterId(Annotated annotated) {
+          return FIELD_FILTER;
+        }
+      });
   private final HttpExchange exchange;
   private boolean isTransactional = false;
+  private RouteInfo route;
+  private Deadline deadline;
+  private byte[] bufferedBody;
+  private boolean responseSent = false;
 
   public Context(HttpExchange exchange) {
     this.exchange = exchange;
@@ -29,12 +52,34 @@ public class Context {
     return exchange.getRequestURI().getPath();
   }
 
+  /**
+   * First value of a request header, or null if absent
+   */
+  public String header(String name) {
+    return exchange.getRequestHeaders().getFirst(name);
+  }
+
   public InputStream body() {
+    if (bufferedBody != null) {
+      return new ByteArrayInputStream(bufferedBody);
+    }
     return exchange.getRequestBody();
   }
 
   public <T> T bodyAs(Class<T> clazz) throws IOException {
-    return objectMapper.readValue(exchange.getRequestBody(), clazz);
+    return objectMapper.readValue(body(), clazz);
+  }
+
+  /**
+   * Read the whole request body into memory so {@link #body()} and {@link #bodyAs(Class)} can be
+   * called again, e.g. when a transactional handler is re-run after a serialization failure.
+   */
+  public void bufferBody() throws IOException {
+    if (bufferedBody == null) {
+      try (InputStream in = exchange.getRequestBody()) {
+        bufferedBody = in.readAllBytes();
+      }
+    }
   }
 
   public String queryParam(String key) {
@@ -65,6 +110,7 @@ public class Context {
   public void textResponse(String response) throws IOException {
     byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
     exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+    responseSent = true;
     exchange.sendResponseHeaders(200, bytes.length);
     try (OutputStream os = exchange.getResponseBody()) {
       os.write(bytes);
@@ -74,6 +120,7 @@ public class Context {
   public void jsonResponse(String json) throws IOException {
     byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
     exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+    responseSent = true;
     exchange.sendResponseHeaders(200, bytes.length);
     try (OutputStream os = exchange.getResponseBody()) {
       os.write(bytes);
@@ -85,10 +132,48 @@ public class Context {
     jsonResponse(s);
   }
 
+  /**
+   * Serialize an object keeping only the given properties of the instances of {@code type}, e.g.
+   * the entities inside a list or page, for partial responses such as {@code ?fields=id,status}
+   *
+   * @param fields Property names to keep, or null to keep all
+   */
+  public void jsonResponse(Object object, Class<?> type, Set<String> fields) throws IOException {
+    if (fields == null) {
+      jsonResponse(object);
+      return;
+    }
+    SimpleFilterProvider filters = new SimpleFilterProvider()
+        .addFilter(FIELD_FILTER, new PropertySubsetFilter(type, fields));
+    jsonResponse(filteringMapper.writer(filters).writeValueAsString(object));
+  }
+
+  /**
+   * See {@link #jsonResponse(Object, Class, Set)}; filters the object itself or, for a collection or
+   * array, its elements
+   */
+  public void jsonResponse(Object object, Set<String> fields) throws IOException {
+    Class<?> type = Void.class;
+    if (object instanceof Collection<?> collection) {
+      for (Object element : collection) {
+        if (element != null) {
+          type = element.getClass();
+          break;
+        }
+      }
+    } else if (object != null && object.getClass().isArray()) {
+      type = object.getClass().getComponentType();
+    } else if (object != null) {
+      type = object.getClass();
+    }
+    jsonResponse(object, type, fields);
+  }
+
   public void errorResponse(Object object) throws IOException {
     String json = objectMapper.writeValueAsString(object);
     byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
     exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+    responseSent = true;
     exchange.sendResponseHeaders(500, bytes.length);
     try (OutputStream os = exchange.getResponseBody()) {
       os.write(bytes);
@@ -96,6 +181,7 @@ public class Context {
   }
 
   public void statusResponse(int code) throws IOException {
+    responseSent = true;
     exchange.sendResponseHeaders(code, -1);
   }
 
@@ -107,4 +193,53 @@ public class Context {
     return isTransactional;
   }
 
+  protected void setRoute(RouteInfo route) {
+    this.route = route;
+  }
+
+  public RouteInfo route() {
+    return route;
+  }
+
+  protected void setDeadline(Deadline deadline) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * The request deadline, or null when neither the route nor the server defines a timeout
+   */
+  public Deadline deadline() {
+    return deadline;
+  }
+
+  /**
+   * Whether response headers have already been sent for this request
+   */
+  public boolean isResponseSent() {
+    return responseSent;
+  }
+
+  /**
+   * Drops the properties of one type's instances that were not asked for; other beans pass as is
+   */
+  private static final class PropertySubsetFilter extends SimpleBeanPropertyFilter {
+    private final Class<?> type;
+    private final Set<String> fields;
+
+    PropertySubsetFilter(Class<?> type, Set<String> fields) {
+      this.type = type;
+      this.fields = fields;
+    }
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator jgen, SerializerProvider provider,
+        PropertyWriter writer) throws Exception {
+      if (!type.isInstance(pojo) || fields.contains(writer.getName())) {
+        writer.serializeAsField(pojo, jgen, provider);
+      } else if (!jgen.canOmitFields()) {
+        writer.serializeAsOmittedField(pojo, jgen, provider);
+      }
+    }
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.crane.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time budget of a request. Statements executed on behalf of the request get a query timeout
+ * derived from the remaining budget and are cancelled when the deadline passes, so a slow query
+ * cannot hold a pool connection long after the client has given up.
+ */
+public class Deadline {
+
+    private static final Logger LOGGER = LogManager.getLogger(Deadline.class);
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "crane-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Most requests finish long before their deadline; drop their cancelled timers at once
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    // Tracked statements at which closed ones are dropped; doubles with the statements still open
+    private static final int PRUNE_THRESHOLD = 16;
+
+    private final long deadlineNanos;
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pruneAt = new AtomicInteger(PRUNE_THRESHOLD);
+    private volatile boolean cancelled;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return cancelled || remainingNanos() <= 0;
+    }
+
+    /**
+     * Apply the remaining budget to a statement as its query timeout (rounded up to whole seconds)
+     * and track it for cancellation until it is closed
+     *
+     * @throws SQLTimeoutException if the deadline has already passed
+     */
+    public void apply(Statement statement) throws SQLException {
+        long remaining = remainingNanos();
+        if (cancelled || remaining <= 0) {
+            throw new SQLTimeoutException("Request deadline exceeded");
+        }
+        statement.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + 999_999_999L)));
+        statements.add(statement);
+        if (statements.size() >= pruneAt.get()) {
+            prune();
+        }
+    }
+
+    /**
+     * Cancel every statement still running for this request. Invoked when the deadline passes and
+     * available to callers that detect the client has gone away.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            if (isClosed(statement)) {
+                continue;
+            }
+            try {
+                statement.cancel();
+                LOGGER.warn("Cancelled statement after request deadline");
+            } catch (SQLException e) {
+                LOGGER.debug("Failed to cancel statement", e);
+            }
+        }
+        statements.clear();
+    }
+
+    /**
+     * Stop tracking closed statements, so a request preparing many keeps only the open ones (and
+     * their driver resources) reachable
+     */
+    private void prune() {
+        statements.removeIf(Deadline::isClosed);
+        pruneAt.set(Math.max(PRUNE_THRESHOLD, statements.size() * 2));
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true; // nothing left to cancel
+        }
+    }
+
+    /**
+     * Schedule {@link #cancel()} for when the deadline passes. The returned future should be
+     * cancelled once the request completes.
+     */
+    public ScheduledFuture<?> scheduleCancellation() {
+        return SCHEDULER.schedule(this::cancel, Math.max(0, remainingNanos()), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,171 @@
+package com.crane.core;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy for transactional routes. A transaction that fails with a serialization failure or
+ * deadlock is rolled back and the handler is run again, with capped exponential backoff and full
+ * jitter between attempts, until either the attempt limit or the time budget is exhausted.
+ */
+public class RetryPolicy {
+
+    /**
+     * SQLStates that signal a transaction may succeed when re-run: serialization failure
+     * (standard, SQL Server and MySQL deadlocks) and PostgreSQL deadlock
+     */
+    public static final Set<String> DEFAULT_SQL_STATES = Set.of("40001", "40P01");
+
+    /**
+     * Vendor error codes reported with a non-standard SQLState, by a lower-case part of the database
+     * product name the driver reports: MySQL and MariaDB deadlock (1213), SQL Server deadlock victim
+     * (1205), Oracle deadlock (ORA-00060) and serialization failure (ORA-08177). Codes are only
+     * meaningful for their vendor; MySQL's 1205, for one, is a lock wait timeout and not retried.
+     */
+    public static final Map<String, Set<Integer>> DEFAULT_ERROR_CODES = Map.of(
+            "mysql", Set.of(1213),
+            "mariadb", Set.of(1213),
+            "microsoft sql server", Set.of(1205),
+            "oracle", Set.of(60, 8177));
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration maxElapsed;
+    private final Set<String> sqlStates;
+    private final Map<String, Set<Integer>> errorCodes;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.maxElapsed = builder.maxElapsed;
+        this.sqlStates = Set.copyOf(builder.sqlStates);
+        this.errorCodes = Map.copyOf(builder.errorCodes);
+    }
+
+    public static RetryPolicy defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxAttempts() { return maxAttempts; }
+    public Duration getInitialBackoff() { return initialBackoff; }
+    public Duration getMaxBackoff() { return maxBackoff; }
+    public Duration getMaxElapsed() { return maxElapsed; }
+
+    /**
+     * Whether the failure has a retryable SQLState, ignoring vendor codes
+     */
+    public boolean isRetryable(Throwable failure) {
+        return isRetryable(failure, null);
+    }
+
+    /**
+     * Walk the cause chain looking for an SQLException whose SQLState or vendor code is retryable.
+     * Handlers and repositories frequently wrap SQLExceptions, so the top-level type is not enough.
+     *
+     * @param databaseProduct Product name reported by the driver, selecting the vendor codes to
+     *                        match; null matches SQLStates only
+     */
+    public boolean isRetryable(Throwable failure, String databaseProduct) {
+        Set<Integer> codes = errorCodesOf(databaseProduct);
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sqlException) {
+                for (SQLException e = sqlException; e != null; e = e.getNextException()) {
+                    if ((e.getSQLState() != null && sqlStates.contains(e.getSQLState()))
+                            || codes.contains(e.getErrorCode())) {
+                        return true;
+                    }
+                }
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private Set<Integer> errorCodesOf(String databaseProduct) {
+        if (databaseProduct == null) {
+            return Set.of();
+        }
+        String product = databaseProduct.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, Set<Integer>> vendor : errorCodes.entrySet()) {
+            if (product.contains(vendor.getKey())) {
+                return vendor.getValue();
+            }
+        }
+        return Set.of();
+    }
+
+    /**
+     * Backoff before the given retry (1-based), full jitter over the capped exponential delay
+     */
+    public long backoffMillis(int retry) {
+        long base = initialBackoff.toMillis();
+        long cap = maxBackoff.toMillis();
+        long delay = retry >= 31 ? cap : Math.min(cap, base << (retry - 1));
+        return delay <= 0 ? 0 : ThreadLocalRandom.current().nextLong(delay + 1);
+    }
+
+    public static class Builder {
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(20);
+        private Duration maxBackoff = Duration.ofMillis(500);
+        private Duration maxElapsed = Duration.ofSeconds(5);
+        private Set<String> sqlStates = DEFAULT_SQL_STATES;
+        private Map<String, Set<Integer>> errorCodes = DEFAULT_ERROR_CODES;
+
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be >= 1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder initialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Overall time budget; no retry is started once it would be exceeded
+         */
+        public Builder maxElapsed(Duration maxElapsed) {
+            this.maxElapsed = maxElapsed;
+            return this;
+        }
+
+        public Builder sqlStates(Set<String> sqlStates) {
+            this.sqlStates = sqlStates;
+            return this;
+        }
+
+        /**
+         * Vendor error codes by lower-case part of the database product name, see
+         * {@link #DEFAULT_ERROR_CODES}
+         */
+        public Builder errorCodes(Map<String, Set<Integer>> errorCodes) {
+            this.errorCodes = errorCodes;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -1,14 +1,61 @@
 package com.crane.core;
 
+import com.crane.core.transaction.TransactionDefinition;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
 public class RouteInfo {
     private final Handler handler;
     private final boolean transactional;
+    private TransactionDefinition transaction = TransactionDefinition.required();
+    private RetryPolicy retryPolicy;
+    private Duration timeout;
+    private final LongAdder retries = new LongAdder();
 
     public RouteInfo(Handler handler, boolean transactional) {
         this.handler = handler;
         this.transactional = transactional;
     }
 
+    /**
+     * Propagation, isolation level and read-only flag used for this transactional route
+     */
+    public RouteInfo transaction(TransactionDefinition transaction) {
+        if (!transactional) {
+            throw new IllegalStateException("Transaction options can only be configured on transactional routes");
+        }
+        this.transaction = transaction;
+        return this;
+    }
+
+    /**
+     * Re-run the handler of this transactional route when its transaction fails with a
+     * serialization failure or deadlock. The request body is buffered so it can be read again.
+     */
+    public RouteInfo retry(RetryPolicy retryPolicy) {
+        if (!transactional) {
+            throw new IllegalStateException("Retry can only be configured on transactional routes");
+        }
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Deadline for requests to this route, overriding the server-wide request timeout. Statements
+     * executed by the handler are limited to the remaining budget.
+     */
+    public RouteInfo timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
     public Handler getHandler() { return handler; }
     public boolean isTransactional() { return transactional; }
+    public TransactionDefinition getTransaction() { return transaction; }
+    public RetryPolicy getRetryPolicy() { return retryPolicy; }
+    public Duration getTimeout() { return timeout; }
+
+    public void recordRetry() { retries.increment(); }
+    public long getRetryCount() { return retries.sum(); }
 }
@@ -10,32 +10,52 @@ public class Router {
   private final Map<String, RouteInfo> putRoutes = new HashMap<>();
   private final Map<String, RouteInfo> deleteRoutes = new HashMap<>();
 
-  public void get(String path, Handler handler) {
-    getRoutes.put(path, new RouteInfo(handler, false));
+  public RouteInfo get(String path, Handler handler) {
+    RouteInfo routeInfo = new RouteInfo(handler, false);
+    getRoutes.put(path, routeInfo);
+    return routeInfo;
   }
 
-  public void post(String path, Handler handler) {
-    postRoutes.put(path, new RouteInfo(handler, false));
+  public RouteInfo post(String path, Handler handler) {
+    RouteInfo routeInfo = new RouteInfo(handler, false);
+    postRoutes.put(path, routeInfo);
+    return routeInfo;
   }
 
-  public void put(String path, Handler handler) {
-    putRoutes.put(path, new RouteInfo(handler, false));
+  public RouteInfo put(String path, Handler handler) {
+    RouteInfo routeInfo = new RouteInfo(handler, false);
+    putRoutes.put(path, routeInfo);
+    return routeInfo;
   }
 
-  public void delete(String path, Handler handler) {
-    deleteRoutes.put(path, new RouteInfo(handler, false));
+  public RouteInfo delete(String path, Handler handler) {
+    RouteInfo routeInfo = new RouteInfo(handler, false);
+    deleteRoutes.put(path, routeInfo);
+    return routeInfo;
   }
 
-  public void postTransactional(String path, Handler handler) {
-    postRoutes.put(path, new RouteInfo(handler, true));
+  public RouteInfo getTransactional(String path, Handler handler) {
+    RouteInfo routeInfo = new RouteInfo(handler, true);
+    getRoutes.put(path, routeInfo);
+    return routeInfo;
   }
 
-  public void putTransactional(String path, Handler handler) {
-    putRoutes.put(path, new RouteInfo(handler, true));
+  public RouteInfo postTransactional(String path, Handler handler) {
+    RouteInfo routeInfo = new RouteInfo(handler, true);
+    postRoutes.put(path, routeInfo);
+    return routeInfo;
   }
 
-  public void deleteTransactional(String path, Handler handler) {
-    deleteRoutes.put(path, new RouteInfo(handler, true));
+  public RouteInfo putTransactional(String path, Handler handler) {
+    RouteInfo routeInfo = new RouteInfo(handler, true);
+    putRoutes.put(path, routeInfo);
+    return routeInfo;
+  }
+
+  public RouteInfo deleteTransactional(String path, Handler handler) {
+    RouteInfo routeInfo = new RouteInfo(handler, true);
+    deleteRoutes.put(path, routeInfo);
+    return routeInfo;
   }
 
   public RouteInfo route(String method, String path) {
@@ -4,10 +4,12 @@ import com.crane.core.config.ConfigurationManager;
 import com.crane.core.config.CraneConfig;
 import com.crane.core.config.DatabaseConfig;
 import com.crane.core.config.MailConfig;
+import com.crane.core.jdbc.QueryMetrics;
 import com.crane.core.middleware.ExceptionMiddleware;
 import com.crane.core.middleware.LogMiddleware;
 import com.crane.core.middleware.Middleware;
 import com.crane.core.middleware.TransactionalMiddleware;
+import com.crane.core.transaction.TransactionManager;
 import com.sun.net.httpserver.HttpServer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,6 +19,7 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executors;
@@ -69,7 +72,10 @@ public class Server {
         if (dbConfig != null && isDataModuleAvailable()) {
             DataSource dataSource = initializeDataSource();
             LOGGER.info("Database connection pool initialized");
-            use(new TransactionalMiddleware(dataSource));
+            QueryMetrics.configure(dbConfig.isQueryMetricsEnabled(), dbConfig.getSlowQueryThresholdMs());
+            TransactionManager transactionManager = new TransactionManager(dataSource);
+            appContext.registerInstance(TransactionManager.class, transactionManager);
+            use(new TransactionalMiddleware(transactionManager));
             LOGGER.info("TransactionalMiddleware has been enabled.");
         } else if (dbConfig != null && !isDataModuleAvailable()) {
             LOGGER.warn("DatabaseConfig provided but crane-data module not found in classpath");
@@ -88,6 +94,12 @@ public class Server {
                 Thread.startVirtualThread(() -> {
                     try {
                         Context context = new Context(exchange);
+                        context.setRoute(routeInfo);
+                        Duration timeout = routeInfo.getTimeout() != null ? routeInfo.getTimeout()
+                                : Duration.ofMillis(craneConfig.getServer().getRequestTimeoutMs());
+                        if (!timeout.isZero() && !timeout.isNegative()) {
+                            context.setDeadline(Deadline.after(timeout));
+                        }
                         if (routeInfo.isTransactional()) {
                             context.markTransactional();
                         }
@@ -161,14 +173,9 @@ public class Server {
             // Use reflection to call DataSourceProvider.init()
             Class<?> dataSourceProviderClass = Class.forName("com.crane.data.DataSourceProvider");
 
-            // Get the fields from DatabaseConfig
-            String jdbcUrl = dbConfig.getJdbcUrl();
-            String username = dbConfig.getUsername();
-            String password = dbConfig.getPassword();
-
-            // Call DataSourceProvider.init(jdbcUrl, username, password)
-            var initMethod = dataSourceProviderClass.getMethod("init", String.class, String.class, String.class);
-            return (DataSource) initMethod.invoke(null, jdbcUrl, username, password);
+            // Call DataSourceProvider.init(dbConfig)
+            var initMethod = dataSourceProviderClass.getMethod("init", DatabaseConfig.class);
+            return (DataSource) initMethod.invoke(null, dbConfig);
 
         } catch (Exception e) {
             LOGGER.error("Failed to initialize data source", e);
@@ -56,6 +56,7 @@ public class ConfigurationManager {
       ServerConfig merged = new ServerConfig();
       merged.setPort(userConfig.getServer().getPort() != 0 ? userConfig.getServer().getPort() : defaultConfig.getServer().getPort());
       merged.setHost(userConfig.getServer().getHost() != null ? userConfig.getServer().getHost() : defaultConfig.getServer().getHost());
+      merged.setRequestTimeoutMs(userConfig.getServer().getRequestTimeoutMs());
       defaultConfig.setServer(merged);
     }
 
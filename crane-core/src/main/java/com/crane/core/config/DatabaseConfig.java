@@ -4,6 +4,10 @@ public class DatabaseConfig {
   private String jdbcUrl;
   private String username;
   private String password;
+  private boolean queryMetricsEnabled = true;
+  private long slowQueryThresholdMs = 1000;
+  private String dialect; // null = detect from the driver
+  private boolean batchRewrite = true;
 
   public DatabaseConfig() {}
 
@@ -36,4 +40,36 @@ public class DatabaseConfig {
   public void setPassword(String password) {
     this.password = password;
   }
+
+  public boolean isQueryMetricsEnabled() {
+    return queryMetricsEnabled;
+  }
+
+  public void setQueryMetricsEnabled(boolean queryMetricsEnabled) {
+    this.queryMetricsEnabled = queryMetricsEnabled;
+  }
+
+  public long getSlowQueryThresholdMs() {
+    return slowQueryThresholdMs;
+  }
+
+  public void setSlowQueryThresholdMs(long slowQueryThresholdMs) {
+    this.slowQueryThresholdMs = slowQueryThresholdMs;
+  }
+
+  public String getDialect() {
+    return dialect;
+  }
+
+  public void setDialect(String dialect) {
+    this.dialect = dialect;
+  }
+
+  public boolean isBatchRewrite() {
+    return batchRewrite;
+  }
+
+  public void setBatchRewrite(boolean batchRewrite) {
+    this.batchRewrite = batchRewrite;
+  }
 }
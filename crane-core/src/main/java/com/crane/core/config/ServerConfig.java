@@ -3,10 +3,13 @@ package com.crane.core.config;
 public class ServerConfig {
   private int port = 8080; // default value
   private String host = "localhost"; // default value
+  private long requestTimeoutMs = 0; // 0 = no deadline
 
 
   public int getPort() { return port; }
   public void setPort(int port) { this.port = port; }
   public String getHost() { return host; }
   public void setHost(String host) { this.host = host; }
+  public long getRequestTimeoutMs() { return requestTimeoutMs; }
+  public void setRequestTimeoutMs(long requestTimeoutMs) { this.requestTimeoutMs = requestTimeoutMs; }
 }
@@ -0,0 +1,154 @@
+package com.crane.core.jdbc;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide registry of JDBC statement statistics. Statements are aggregated per SQL template,
+ * statements slower than the configured threshold are logged together with their bound parameter
+ * types, and {@link #top(int)} returns the most expensive templates.
+ */
+public final class QueryMetrics {
+
+    private static final Logger LOGGER = LogManager.getLogger(QueryMetrics.class);
+
+    private static final int MAX_TEMPLATES = 500;
+    private static final String OTHER = "<other>";
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    private static final ConcurrentHashMap<String, QueryStats> STATS = new ConcurrentHashMap<>();
+    private static final LongAdder POOL_ACQUISITIONS = new LongAdder();
+    private static final LongAdder POOL_WAIT_NANOS = new LongAdder();
+
+    private static volatile boolean enabled = true;
+    private static volatile long slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    private QueryMetrics() {}
+
+    public static void configure(boolean enabled, long slowQueryThresholdMs) {
+        QueryMetrics.enabled = enabled;
+        QueryMetrics.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMs);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Wrap a connection freshly taken from the pool. Returns the connection untouched when metrics
+     * are disabled.
+     *
+     * @param connection    pooled connection
+     * @param poolWaitNanos time spent waiting for the pool to hand it out
+     */
+    public static Connection instrument(Connection connection, long poolWaitNanos) {
+        if (!enabled || connection instanceof InstrumentedConnection) {
+            return connection;
+        }
+        POOL_ACQUISITIONS.increment();
+        POOL_WAIT_NANOS.add(poolWaitNanos);
+        return new InstrumentedConnection(connection, poolWaitNanos);
+    }
+
+    /**
+     * Report rows read from a statement's result set and the time spent mapping them. A no-op for
+     * statements that are not instrumented.
+     */
+    public static void recordFetch(Statement statement, long rows, long nanos) {
+        if (statement instanceof InstrumentedPreparedStatement instrumented) {
+            instrumented.recordFetch(rows, nanos);
+        }
+    }
+
+    /**
+     * Collapse placeholder lists such as {@code IN (?, ?, ?)} so that statements differing only in
+     * the number of bound values share one template.
+     */
+    static String template(String sql) {
+        if (sql.indexOf(',') < 0 || sql.indexOf('?') < 0) {
+            return sql;
+        }
+        return PLACEHOLDER_LIST.matcher(sql).replaceAll("?, ...");
+    }
+
+    static void record(InstrumentedPreparedStatement statement) {
+        if (statement.executions() == 0) {
+            return;
+        }
+
+        String sql = statement.template();
+        QueryStats stats = STATS.get(sql);
+        if (stats == null) {
+            if (STATS.size() >= MAX_TEMPLATES) {
+                sql = OTHER;
+            }
+            stats = STATS.computeIfAbsent(sql, QueryStats::new);
+        }
+        stats.add(statement.executions(), statement.executionNanos(), statement.rowsFetched(),
+                statement.mappingNanos(), statement.poolWaitNanos());
+
+        long elapsed = statement.executionNanos() + statement.mappingNanos();
+        if (elapsed >= slowQueryThresholdNanos) {
+            LOGGER.warn("Slow query {} ms (execute {} ms, mapping {} ms, pool wait {} ms, rows {}, executions {}): {} params {}",
+                    millis(elapsed), millis(statement.executionNanos()), millis(statement.mappingNanos()),
+                    millis(statement.poolWaitNanos()), statement.rowsFetched(), statement.executions(),
+                    statement.template(), Arrays.toString(statement.parameterTypes()));
+        }
+    }
+
+    /**
+     * The {@code n} templates with the highest total (execution plus mapping) time
+     */
+    public static List<QueryStats> top(int n) {
+        List<QueryStats> all = new ArrayList<>(STATS.values());
+        all.sort(Comparator.comparingLong(QueryStats::getTotalNanos).reversed());
+        return all.subList(0, Math.min(n, all.size()));
+    }
+
+    /**
+     * Render {@link #top(int)} as a plain text table, e.g. for a diagnostics endpoint or the log
+     */
+    public static String report(int n) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%10s %12s %10s %10s %12s %12s  %s%n",
+                "calls", "total ms", "avg ms", "max ms", "rows", "mapping ms", "sql"));
+        for (QueryStats stats : top(n)) {
+            sb.append(String.format("%10d %12s %10.2f %10s %12d %12s  %s%n",
+                    stats.getExecutions(), millis(stats.getTotalNanos()), stats.getAverageMillis(),
+                    millis(stats.getMaxNanos()), stats.getRowsFetched(), millis(stats.getMappingNanos()),
+                    stats.getSql()));
+        }
+        sb.append(String.format("pool acquisitions %d, total pool wait %s ms%n",
+                POOL_ACQUISITIONS.sum(), millis(POOL_WAIT_NANOS.sum())));
+        return sb.toString();
+    }
+
+    public static long getPoolAcquisitions() {
+        return POOL_ACQUISITIONS.sum();
+    }
+
+    public static long getPoolWaitNanos() {
+        return POOL_WAIT_NANOS.sum();
+    }
+
+    public static void reset() {
+        STATS.clear();
+        POOL_ACQUISITIONS.reset();
+        POOL_WAIT_NANOS.reset();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.crane.core.jdbc;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated statistics for one SQL template
+ */
+public class QueryStats {
+    private final String sql;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder executionNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder rowsFetched = new LongAdder();
+    private final LongAdder mappingNanos = new LongAdder();
+    private final LongAdder poolWaitNanos = new LongAdder();
+
+    QueryStats(String sql) {
+        this.sql = sql;
+    }
+
+    void add(int executions, long executionNanos, long rowsFetched, long mappingNanos, long poolWaitNanos) {
+        this.executions.add(executions);
+        this.executionNanos.add(executionNanos);
+        this.maxNanos.accumulate(executionNanos + mappingNanos);
+        this.rowsFetched.add(rowsFetched);
+        this.mappingNanos.add(mappingNanos);
+        this.poolWaitNanos.add(poolWaitNanos);
+    }
+
+    public String getSql() { return sql; }
+    public long getExecutions() { return executions.sum(); }
+    public long getExecutionNanos() { return executionNanos.sum(); }
+    public long getMaxNanos() { return maxNanos.get(); }
+    public long getRowsFetched() { return rowsFetched.sum(); }
+    public long getMappingNanos() { return mappingNanos.sum(); }
+    public long getPoolWaitNanos() { return poolWaitNanos.sum(); }
+
+    /**
+     * Execution plus mapping time, the figure the top-N table is ordered by
+     */
+    public long getTotalNanos() {
+        return executionNanos.sum() + mappingNanos.sum();
+    }
+
+    public double getAverageMillis() {
+        long count = executions.sum();
+        return count == 0 ? 0 : getTotalNanos() / 1_000_000.0 / count;
+    }
+}
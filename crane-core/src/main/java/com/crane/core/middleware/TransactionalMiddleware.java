@@ -2,28 +2,57 @@ package com.crane.core.middleware;
 
 import com.crane.core.ConnectionHolder;
 import com.crane.core.Context;
+import com.crane.core.Deadline;
 import com.crane.core.Handler;
+import com.crane.core.RetryPolicy;
+import com.crane.core.RouteInfo;
 import com.crane.core.TransactionAwareConnection;
+import com.crane.core.transaction.TransactionDefinition;
+import com.crane.core.transaction.TransactionManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.util.concurrent.ScheduledFuture;
 
 public class TransactionalMiddleware implements Middleware {
 
-    private final DataSource dataSource;
+    private final TransactionManager transactionManager;
     private static final Logger LOGGER = LogManager.getLogger(TransactionalMiddleware.class);
+    // Product name reported by the driver, read in the first transaction to pick vendor error codes
+    private volatile String databaseProduct;
 
 
     public TransactionalMiddleware(DataSource dataSource) {
-        this.dataSource = dataSource;
+        this(new TransactionManager(dataSource));
+    }
+
+    public TransactionalMiddleware(TransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
     }
 
     @Override
     public void apply(Context ctx, Handler next) throws Exception {
+        Deadline deadline = ctx.deadline();
+        if (deadline == null || ConnectionHolder.getDeadline() != null) {
+            handle(ctx, next);
+            return;
+        }
+
+        ScheduledFuture<?> cancellation = deadline.scheduleCancellation();
+        ConnectionHolder.setDeadline(deadline);
+        try {
+            handle(ctx, next);
+        } finally {
+            ConnectionHolder.clearDeadline();
+            cancellation.cancel(false);
+        }
+    }
+
+    private void handle(Context ctx, Handler next) throws Exception {
         if (!ctx.isTransactional()) {
-            Connection connection = dataSource.getConnection();
+            Connection connection = transactionManager.acquire();
             ConnectionHolder.set(new TransactionAwareConnection(connection));
             try {
                 next.handle(ctx);
@@ -39,40 +68,47 @@ public class TransactionalMiddleware implements Middleware {
             return;
         }
 
-        Connection connection = null;
-        try {
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false);
-
-            // Set as transactional connection
-            ConnectionHolder.setTransactional(new TransactionAwareConnection(connection));
-
-            next.handle(ctx);
-
-            if (!connection.isClosed()) {
-                connection.commit();
-                LOGGER.debug("Transaction committed successfully");
-            }
+        RouteInfo route = ctx.route();
+        TransactionDefinition definition = route != null ? route.getTransaction() : TransactionDefinition.required();
+        RetryPolicy retryPolicy = route != null ? route.getRetryPolicy() : null;
+        if (retryPolicy == null) {
+            runInTransaction(definition, ctx, next);
+            return;
+        }
 
-        } catch (Exception e) {
-            if (connection != null && !connection.isClosed()) {
-                try {
-                    connection.rollback();
-                    LOGGER.info("Transaction rolled back due to exception");
-                } catch (Exception sqlEx) {
-                    LOGGER.error("Failed to roll back transaction", sqlEx);
+        ctx.bufferBody();
+        long budget = System.nanoTime() + retryPolicy.getMaxElapsed().toNanos();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                runInTransaction(definition, ctx, next);
+                return;
+            } catch (Exception e) {
+                if (attempt >= retryPolicy.getMaxAttempts() || ctx.isResponseSent()
+                        || !retryPolicy.isRetryable(e, databaseProduct)) {
+                    throw e;
                 }
-            }
-            throw e;
-        } finally {
-            if (connection != null) {
-                ConnectionHolder.clear();
-                try {
-                    connection.close(); // Close the actual connection
-                } catch (Exception sqlEx) {
-                    LOGGER.error("Failed to close connection", sqlEx);
+                long backoff = retryPolicy.backoffMillis(attempt);
+                if (System.nanoTime() + backoff * 1_000_000L > budget
+                        || (ctx.deadline() != null && ctx.deadline().isExpired())) {
+                    throw e;
                 }
+                route.recordRetry();
+                LOGGER.info("Retrying {} {} after {} (attempt {}/{}, backoff {} ms)", ctx.method(), ctx.path(),
+                        e.getMessage(), attempt + 1, retryPolicy.getMaxAttempts(), backoff);
+                Thread.sleep(backoff);
             }
         }
     }
+
+    private void runInTransaction(TransactionDefinition definition, Context ctx, Handler next) throws Exception {
+        transactionManager.execute(definition, () -> {
+            if (databaseProduct == null) {
+                databaseProduct = ConnectionHolder.get().getMetaData().getDatabaseProductName();
+            }
+            next.handle(ctx);
+            // Write queued changes while the handler's retry policy still covers their failures
+            ConnectionHolder.flush();
+            return null;
+        });
+    }
 }
@@ -0,0 +1,19 @@
+package com.crane.core.transaction;
+
+public enum Propagation {
+    /**
+     * Join the current transaction, or start one if none is active
+     */
+    REQUIRED,
+
+    /**
+     * Suspend the current transaction, if any, and run in a new one on its own connection
+     */
+    REQUIRES_NEW,
+
+    /**
+     * Run inside a savepoint of the current transaction, or start one if none is active. A failure
+     * rolls back to the savepoint only.
+     */
+    NESTED
+}
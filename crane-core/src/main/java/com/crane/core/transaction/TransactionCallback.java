@@ -0,0 +1,7 @@
+package com.crane.core.transaction;
+
+@FunctionalInterface
+public interface TransactionCallback<R> {
+
+    R doInTransaction() throws Exception;
+}
@@ -0,0 +1,65 @@
+package com.crane.core.transaction;
+
+/**
+ * Immutable description of how a unit of work should run transactionally
+ */
+public class TransactionDefinition {
+
+    private static final TransactionDefinition REQUIRED =
+            new TransactionDefinition(Propagation.REQUIRED, Isolation.DEFAULT, false, false);
+
+    private final Propagation propagation;
+    private final Isolation isolation;
+    private final boolean readOnly;
+    private final boolean writeBehind;
+
+    private TransactionDefinition(Propagation propagation, Isolation isolation, boolean readOnly,
+                                  boolean writeBehind) {
+        this.propagation = propagation;
+        this.isolation = isolation;
+        this.readOnly = readOnly;
+        this.writeBehind = writeBehind;
+    }
+
+    public static TransactionDefinition required() {
+        return REQUIRED;
+    }
+
+    public static TransactionDefinition requiresNew() {
+        return new TransactionDefinition(Propagation.REQUIRES_NEW, Isolation.DEFAULT, false, false);
+    }
+
+    public static TransactionDefinition nested() {
+        return new TransactionDefinition(Propagation.NESTED, Isolation.DEFAULT, false, false);
+    }
+
+    /**
+     * REQUIRED propagation on a connection marked read-only, letting the driver route to a replica
+     * or skip write bookkeeping
+     */
+    public static TransactionDefinition readOnly() {
+        return new TransactionDefinition(Propagation.REQUIRED, Isolation.DEFAULT, true, false);
+    }
+
+    public TransactionDefinition withIsolation(Isolation isolation) {
+        return new TransactionDefinition(propagation, isolation, readOnly, writeBehind);
+    }
+
+    public TransactionDefinition withReadOnly(boolean readOnly) {
+        return new TransactionDefinition(propagation, isolation, readOnly, writeBehind);
+    }
+
+    /**
+     * Queue repository writes in a unit of work and send them as batches when the transaction
+     * flushes, before commit, instead of one round trip per save or delete. Only applies to
+     * transactions this definition starts, not to ones it joins.
+     */
+    public TransactionDefinition withWriteBehind(boolean writeBehind) {
+        return new TransactionDefinition(propagation, isolation, readOnly, writeBehind);
+    }
+
+    public Propagation getPropagation() { return propagation; }
+    public Isolation getIsolation() { return isolation; }
+    public boolean isReadOnly() { return readOnly; }
+    public boolean isWriteBehind() { return writeBehind; }
+}
@@ -0,0 +1,156 @@
+package com.crane.core.transaction;
+
+import com.crane.core.ConnectionHolder;
+import com.crane.core.TransactionAwareConnection;
+import com.crane.core.jdbc.QueryMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.List;
+
+/**
+ * Programmatic transaction demarcation. Registered in the {@link com.crane.core.AppContext} when a
+ * database is configured, and used by {@link com.crane.core.middleware.TransactionalMiddleware} for
+ * transactional routes.
+ *
+ * <pre>
+ * for (List&lt;Order&gt; chunk : chunks) {
+ *   transactionManager.execute(TransactionDefinition.requiresNew(), () -&gt; {
+ *     orderRepository.saveAll(chunk);
+ *     return null;
+ *   });
+ * }
+ * </pre>
+ */
+public class TransactionManager {
+
+    private static final Logger LOGGER = LogManager.getLogger(TransactionManager.class);
+
+    private final DataSource dataSource;
+
+    public TransactionManager(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public <R> R execute(TransactionCallback<R> callback) throws Exception {
+        return execute(TransactionDefinition.required(), callback);
+    }
+
+    public <R> R execute(TransactionDefinition definition, TransactionCallback<R> callback) throws Exception {
+        boolean active = ConnectionHolder.isTransactional();
+        return switch (definition.getPropagation()) {
+            case REQUIRED -> active ? callback.doInTransaction() : begin(definition, callback);
+            case NESTED -> active ? savepoint(callback) : begin(definition, callback);
+            case REQUIRES_NEW -> begin(definition, callback);
+        };
+    }
+
+    private <R> R begin(TransactionDefinition definition, TransactionCallback<R> callback) throws Exception {
+        ConnectionHolder.Suspended suspended = ConnectionHolder.suspend();
+        Connection connection = null;
+        try {
+            connection = acquire();
+            connection.setAutoCommit(false);
+            if (definition.getIsolation() != Isolation.DEFAULT) {
+                connection.setTransactionIsolation(definition.getIsolation().getLevel());
+            }
+            if (definition.isReadOnly()) {
+                connection.setReadOnly(true);
+            }
+
+            // Set as transactional connection
+            ConnectionHolder.setTransactional(new TransactionAwareConnection(connection));
+            if (definition.isWriteBehind()) {
+                ConnectionHolder.enableWriteBehind();
+            }
+
+            R result = callback.doInTransaction();
+
+            ConnectionHolder.flush();
+            List<TransactionSynchronization> synchronizations = ConnectionHolder.getSynchronizations();
+            for (int i = 0; i < synchronizations.size(); i++) {
+                synchronizations.get(i).beforeCommit();
+            }
+            connection.commit();
+            LOGGER.debug("Transaction committed successfully");
+            for (TransactionSynchronization synchronization : synchronizations) {
+                try {
+                    synchronization.afterCommit();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Transaction synchronization failed after commit", e);
+                }
+            }
+            return result;
+
+        } catch (Exception e) {
+            if (connection != null && !connection.isClosed()) {
+                try {
+                    connection.rollback();
+                    LOGGER.info("Transaction rolled back due to exception");
+                } catch (Exception sqlEx) {
+                    LOGGER.error("Failed to roll back transaction", sqlEx);
+                }
+            }
+            for (TransactionSynchronization synchronization : ConnectionHolder.getSynchronizations()) {
+                try {
+                    synchronization.afterRollback();
+                } catch (RuntimeException syncEx) {
+                    LOGGER.error("Transaction synchronization failed after rollback", syncEx);
+                }
+            }
+            throw e;
+        } finally {
+            ConnectionHolder.resume(suspended);
+            if (connection != null) {
+                try {
+                    connection.close(); // Close the actual connection
+                } catch (Exception sqlEx) {
+                    LOGGER.error("Failed to close connection", sqlEx);
+                }
+            }
+        }
+    }
+
+    private <R> R savepoint(TransactionCallback<R> callback) throws Exception {
+        Connection connection = ConnectionHolder.get();
+        // Writes queued so far belong to the enclosing transaction, keep them out of the savepoint's reach
+        ConnectionHolder.flush();
+        Savepoint savepoint = connection.setSavepoint();
+        R result;
+        try {
+            result = callback.doInTransaction();
+            ConnectionHolder.flush(); // Writes queued inside must be covered by the savepoint
+        } catch (Exception e) {
+            connection.rollback(savepoint);
+            LOGGER.info("Rolled back to savepoint due to exception");
+            for (TransactionSynchronization synchronization : ConnectionHolder.getSynchronizations()) {
+                try {
+                    synchronization.afterRollbackToSavepoint();
+                } catch (RuntimeException syncEx) {
+                    LOGGER.error("Transaction synchronization failed after rollback to savepoint", syncEx);
+                }
+            }
+            throw e;
+        }
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLFeatureNotSupportedException e) {
+            // Some drivers (e.g. Oracle) release savepoints implicitly
+        }
+        return result;
+    }
+
+    /**
+     * Take a connection from the pool, recording the pool wait for query metrics
+     */
+    public Connection acquire() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        return QueryMetrics.instrument(connection, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,35 @@
+package com.crane.core.transaction;
+
+/**
+ * Callback invoked around the completion of a transaction, registered through
+ * {@link com.crane.core.ConnectionHolder#registerSynchronization(TransactionSynchronization)}
+ */
+public interface TransactionSynchronization {
+
+    /**
+     * Write changes held back in memory to the database. Invoked before {@link #beforeCommit()}, and
+     * earlier through {@link com.crane.core.ConnectionHolder#flush()}.
+     */
+    default void flush() throws Exception {
+    }
+
+    /**
+     * Invoked before the connection is committed, while it is still bound. Throwing rolls the
+     * transaction back.
+     */
+    default void beforeCommit() throws Exception {
+    }
+
+    default void afterCommit() {
+    }
+
+    default void afterRollback() {
+    }
+
+    /**
+     * Invoked when a NESTED transaction has rolled back to its savepoint. The savepoint was set
+     * after a {@link #flush()}, so state gathered since that flush is void.
+     */
+    default void afterRollbackToSavepoint() {
+    }
+}
@@ -0,0 +1,254 @@
+package com.crane.data;
+
+import com.crane.data.dialect.Dialect;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes entities in chunks of {@link #chunkSize(int)} rows, so large collections neither build
+ * one huge JDBC batch nor exceed driver limits. Inserts can be rewritten into multi-row
+ * {@code VALUES (...), (...)} statements where the dialect allows it; generated keys are mapped
+ * back chunk by chunk.
+ *
+ * <p>The writer uses the connection it is given and never closes it.
+ */
+public class BatchWriter<T> {
+
+  public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+  private static final Logger LOGGER = LogManager.getLogger(BatchWriter.class);
+
+  /**
+   * Called after every chunk with the number of entities written so far and the total
+   */
+  @FunctionalInterface
+  public interface ProgressListener {
+    void onProgress(long written, long total);
+  }
+
+  private final JdbcRepository<T, ?> repository;
+  private final EntityMeta<T> meta;
+  private final EntityStatements statements;
+  private final Dialect dialect;
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+  private boolean multiRowInsert;
+  private ProgressListener progressListener;
+
+  BatchWriter(JdbcRepository<T, ?> repository, Dialect dialect) {
+    this.repository = repository;
+    this.meta = repository.meta;
+    this.statements = repository.statements;
+    this.dialect = dialect;
+  }
+
+  public BatchWriter<T> chunkSize(int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be > 0");
+    }
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  /**
+   * Send each insert chunk as one multi-row statement instead of a JDBC batch. Ignored when the
+   * dialect has no multi-row insert; chunks are capped by the dialect's bind parameter limit.
+   */
+  public BatchWriter<T> multiRowInsert(boolean multiRowInsert) {
+    this.multiRowInsert = multiRowInsert;
+    return this;
+  }
+
+  public BatchWriter<T> onProgress(ProgressListener progressListener) {
+    this.progressListener = progressListener;
+    return this;
+  }
+
+  /**
+   * Insert the entities, generating application-side values first and reading back
+   * database-generated ones
+   *
+   * @return the number of entities inserted
+   */
+  public long insert(Connection conn, List<T> entities) throws SQLException {
+    String sql = statements.insert();
+    if (sql == null) {
+      throw new SQLException("No insertable columns found. All fields are database-generated.");
+    }
+    boolean multiRow = multiRowInsert && dialect.supportsMultiRowInsert();
+    int size = multiRow ? Math.min(chunkSize, rowsPerStatement()) : chunkSize;
+
+    long written = 0;
+    String fullChunkSql = null;
+    for (int from = 0; from < entities.size(); from += size) {
+      List<T> chunk = entities.subList(from, Math.min(from + size, entities.size()));
+      for (T entity : chunk) {
+        repository.generateApplicationValues(entity);
+      }
+      if (multiRow) {
+        if (chunk.size() == size && fullChunkSql == null) {
+          fullChunkSql = multiRowSql(size);
+        }
+        insertMultiRow(conn, chunk.size() == size ? fullChunkSql : multiRowSql(chunk.size()), chunk);
+      } else {
+        insertBatch(conn, sql, chunk, from);
+      }
+      repository.afterWrite(chunk);
+      written += chunk.size();
+      progress(written, entities.size());
+    }
+    return written;
+  }
+
+  /**
+   * Update the entities by ID
+   *
+   * @return the entities whose row was not found
+   */
+  public List<T> update(Connection conn, List<T> entities) throws SQLException {
+    String sql = statements.update();
+    if (sql == null) {
+      return new ArrayList<>(); // Nothing to update
+    }
+    return update(conn, entities, new EntityStatements.PartialUpdate(sql,
+        statements.updateBinders()));
+  }
+
+  /**
+   * Update the entities with a statement covering a subset of the columns
+   *
+   * @return the entities whose row was not found
+   */
+  List<T> update(Connection conn, List<T> entities, EntityStatements.PartialUpdate update)
+      throws SQLException {
+    List<T> missing = new ArrayList<>();
+    String sql = update.sql();
+    long written = 0;
+    for (int from = 0; from < entities.size(); from += chunkSize) {
+      List<T> chunk = entities.subList(from, Math.min(from + chunkSize, entities.size()));
+      try (PreparedStatement stmt = repository.prepare(conn, sql)) {
+        for (T entity : chunk) {
+          // Set update parameters followed by the WHERE clause ID
+          EntityStatements.bind(stmt, entity, update.binders(), 1);
+          stmt.addBatch();
+        }
+        int[] results = stmt.executeBatch();
+        for (int i = 0; i < results.length; i++) {
+          if (results[i] == 0) {
+            missing.add(chunk.get(i));
+          }
+        }
+      }
+      repository.afterWrite(chunk);
+      written += chunk.size();
+      progress(written, entities.size());
+    }
+    return missing;
+  }
+
+  /**
+   * Insert or update the entities with the dialect's native upsert
+   *
+   * @throws UnsupportedOperationException if the entity or dialect has no upsert statement
+   */
+  public void upsert(Connection conn, List<T> entities) throws SQLException {
+    String sql = statements.upsert(dialect);
+    if (sql == null) {
+      throw new UnsupportedOperationException(
+          "No upsert for " + meta.type().getSimpleName() + " with the " + dialect + " dialect");
+    }
+
+    long written = 0;
+    for (int from = 0; from < entities.size(); from += chunkSize) {
+      List<T> chunk = entities.subList(from, Math.min(from + chunkSize, entities.size()));
+      for (T entity : chunk) {
+        repository.generateApplicationValues(entity);
+      }
+      try (PreparedStatement stmt = repository.prepare(conn, sql)) {
+        for (T entity : chunk) {
+          statements.bindUpsert(stmt, entity);
+          stmt.addBatch();
+        }
+        checkResults(stmt.executeBatch(), from, "upsert");
+      }
+      repository.afterWrite(chunk);
+      written += chunk.size();
+      progress(written, entities.size());
+    }
+  }
+
+  private void insertBatch(Connection conn, String sql, List<T> chunk, int offset)
+      throws SQLException {
+    boolean needsGeneratedKeys = statements.needsGeneratedKeys();
+    try (PreparedStatement stmt = repository.prepare(conn, sql,
+        needsGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS)) {
+      for (T entity : chunk) {
+        statements.bindInsert(stmt, entity);
+        stmt.addBatch();
+      }
+      checkResults(stmt.executeBatch(), offset, "insert");
+      if (needsGeneratedKeys) {
+        readGeneratedKeys(stmt, chunk);
+      }
+    }
+  }
+
+  private void insertMultiRow(Connection conn, String sql, List<T> chunk) throws SQLException {
+    boolean needsGeneratedKeys = statements.needsGeneratedKeys();
+    FieldAccessor[] binders = statements.insertBinders();
+    try (PreparedStatement stmt = repository.prepare(conn, sql,
+        needsGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS)) {
+      int offset = 1;
+      for (T entity : chunk) {
+        EntityStatements.bind(stmt, entity, binders, offset);
+        offset += binders.length;
+      }
+      stmt.executeUpdate();
+      if (needsGeneratedKeys) {
+        readGeneratedKeys(stmt, chunk);
+      }
+    }
+  }
+
+  private void readGeneratedKeys(PreparedStatement stmt, List<T> chunk) throws SQLException {
+    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+      int entityIndex = 0;
+      while (entityIndex < chunk.size() && generatedKeys.next()) {
+        repository.readGeneratedKeys(generatedKeys, chunk.get(entityIndex++));
+      }
+      if (entityIndex < chunk.size()) {
+        LOGGER.warn("Driver returned generated keys for {} of {} inserted {} rows", entityIndex,
+            chunk.size(), meta.type().getSimpleName());
+      }
+    }
+  }
+
+  private int rowsPerStatement() {
+    int columns = Math.max(1, statements.insertColumns().size());
+    return Math.max(1, dialect.maxBindParameters() / columns);
+  }
+
+  private String multiRowSql(int rows) {
+    return dialect.multiRowInsert(meta.table(), statements.insertColumns(), rows);
+  }
+
+  private void checkResults(int[] results, int offset, String operation) throws SQLException {
+    for (int i = 0; i < results.length; i++) {
+      if (results[i] == Statement.EXECUTE_FAILED) {
+        throw new SQLException("Batch " + operation + " failed for entity at index " + (offset + i));
+      }
+    }
+  }
+
+  private void progress(long written, long total) {
+    if (progressListener != null) {
+      progressListener.onProgress(written, total);
+    }
+  }
+}
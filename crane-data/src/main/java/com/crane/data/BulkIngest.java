@@ -0,0 +1,417 @@
+package com.crane.data;
+
+import com.crane.core.Context;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Streams NDJSON, JSON array or CSV uploads into a repository's table with constant memory. The
+ * calling thread parses records incrementally and hands chunks through a bounded queue to a writer
+ * virtual thread, which inserts them with a {@link BatchWriter} on its own connection from
+ * {@link DataSourceProvider} and commits chunk by chunk. A chunk the database rejects is retried
+ * row by row so the failing records can be reported.
+ *
+ * <pre>{@code
+ * IngestResult result = BulkIngest.into(userRepository).chunkSize(5000).run(ctx);
+ * }</pre>
+ *
+ * <p>Record keys and CSV headers may be field or column names; values are converted to the field
+ * types the same way result set values are.
+ */
+public class BulkIngest<T> {
+
+  private static final Logger LOGGER = LogManager.getLogger(BulkIngest.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  public enum Format {
+    /** One JSON object per line; a top-level JSON array of objects is accepted too */
+    NDJSON,
+    CSV;
+
+    /**
+     * Format for a request Content-Type, defaulting to NDJSON
+     */
+    public static Format fromContentType(String contentType) {
+      if (contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv")) {
+        return CSV;
+      }
+      return NDJSON;
+    }
+  }
+
+  private final JdbcRepository<T, ?> repository;
+  private final Map<String, FieldAccessor> properties = new HashMap<>();
+  private Format format = Format.NDJSON;
+  private int chunkSize = BatchWriter.DEFAULT_CHUNK_SIZE;
+  private int queueCapacity = 4;
+  private int maxErrors = 1000;
+  private boolean upsert;
+
+  private BulkIngest(JdbcRepository<T, ?> repository) {
+    this.repository = repository;
+    EntityMeta<T> meta = repository.meta;
+    for (String column : meta.columns()) {
+      FieldAccessor accessor = meta.accessor(column);
+      properties.put(accessor.field.getName(), accessor);
+      properties.put(column, accessor);
+    }
+  }
+
+  public static <T> BulkIngest<T> into(JdbcRepository<T, ?> repository) {
+    return new BulkIngest<>(repository);
+  }
+
+  public BulkIngest<T> format(Format format) {
+    this.format = format;
+    return this;
+  }
+
+  public BulkIngest<T> chunkSize(int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be > 0");
+    }
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  /**
+   * Parsed chunks that may wait for the writer; bounds memory to roughly
+   * {@code (queueCapacity + 2) * chunkSize} records
+   */
+  public BulkIngest<T> queueCapacity(int queueCapacity) {
+    if (queueCapacity <= 0) {
+      throw new IllegalArgumentException("Queue capacity must be > 0");
+    }
+    this.queueCapacity = queueCapacity;
+    return this;
+  }
+
+  /**
+   * Stop the ingest once this many records have failed
+   */
+  public BulkIngest<T> maxErrors(int maxErrors) {
+    if (maxErrors <= 0) {
+      throw new IllegalArgumentException("Max errors must be > 0");
+    }
+    this.maxErrors = maxErrors;
+    return this;
+  }
+
+  /**
+   * Insert or update by ID with the dialect's upsert instead of plain inserts
+   */
+  public BulkIngest<T> upsert(boolean upsert) {
+    this.upsert = upsert;
+    return this;
+  }
+
+  /**
+   * Ingest the request body, taking the format from its Content-Type
+   */
+  public IngestResult run(Context ctx) throws IOException, SQLException {
+    format(Format.fromContentType(ctx.header("Content-Type")));
+    try (InputStream body = ctx.body()) {
+      return run(body);
+    }
+  }
+
+  public IngestResult run(InputStream in) throws IOException, SQLException {
+    Pipeline pipeline = new Pipeline(repository.batchWriter().chunkSize(chunkSize));
+    long start = System.nanoTime();
+    pipeline.writer.start();
+    try {
+      if (format == Format.CSV) {
+        readCsv(in, pipeline);
+      } else {
+        readJson(in, pipeline);
+      }
+      pipeline.finish();
+    } catch (IOException | RuntimeException e) {
+      pipeline.abort();
+      throw e;
+    }
+
+    IngestResult result = new IngestResult(pipeline.rowsRead, pipeline.rowsWritten.get(),
+        pipeline.rowsFailed.get(), pipeline.errors, System.nanoTime() - start,
+        pipeline.isAborted());
+    LOGGER.info("Ingested {} of {} {} rows in {} ms ({} rows/s), {} failed{}",
+        result.getRowsWritten(), result.getRowsRead(), repository.meta.type().getSimpleName(),
+        result.getElapsedMillis(), Math.round(result.getRowsPerSecond()), result.getRowsFailed(),
+        result.isAborted() ? ", aborted after too many errors" : "");
+    return result;
+  }
+
+  private void readJson(InputStream in, Pipeline pipeline) throws IOException, SQLException {
+    try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+      JsonToken token = parser.nextToken();
+      boolean array = token == JsonToken.START_ARRAY;
+      if (array) {
+        token = parser.nextToken();
+      }
+      while (token != null && !(array && token == JsonToken.END_ARRAY) && !pipeline.isAborted()) {
+        long line = parser.currentLocation().getLineNr();
+        // Malformed JSON cannot be resynchronised and fails the upload; records that parse but
+        // do not map to the entity are reported per row
+        JsonNode node = MAPPER.readTree(parser);
+        long row = ++pipeline.rowsRead;
+        try {
+          pipeline.add(fromJson(node), row, line);
+        } catch (RuntimeException e) {
+          pipeline.fail(row, line, e.getMessage());
+        }
+        token = parser.nextToken();
+      }
+    }
+  }
+
+  private T fromJson(JsonNode node) {
+    if (!node.isObject()) {
+      throw new IllegalArgumentException("Expected a JSON object but found " + node.getNodeType());
+    }
+    T entity = repository.meta.newInstance();
+    for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+      Map.Entry<String, JsonNode> field = it.next();
+      JsonNode value = field.getValue();
+      Object raw;
+      if (value.isNull()) {
+        raw = null;
+      } else if (value.isTextual()) {
+        raw = value.textValue();
+      } else if (value.isNumber()) {
+        raw = value.numberValue();
+      } else if (value.isBoolean()) {
+        raw = value.booleanValue();
+      } else {
+        raw = value.toString(); // nested JSON, e.g. for a JSON column
+      }
+      set(entity, field.getKey(), raw);
+    }
+    return entity;
+  }
+
+  private void readCsv(InputStream in, Pipeline pipeline) throws IOException, SQLException {
+    CsvReader reader = new CsvReader(
+        new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    List<String> header = reader.next();
+    if (header == null) {
+      return;
+    }
+    List<String> names = new ArrayList<>(header.size());
+    for (String name : header) {
+      names.add(name == null ? "" : name.trim());
+    }
+
+    List<String> record;
+    while (!pipeline.isAborted() && (record = reader.next()) != null) {
+      long row = ++pipeline.rowsRead;
+      long line = reader.recordLine();
+      try {
+        if (record.size() != names.size()) {
+          throw new IllegalArgumentException(
+              "Expected " + names.size() + " fields but found " + record.size());
+        }
+        T entity = repository.meta.newInstance();
+        for (int i = 0; i < names.size(); i++) {
+          set(entity, names.get(i), record.get(i));
+        }
+        pipeline.add(entity, row, line);
+      } catch (RuntimeException e) {
+        pipeline.fail(row, line, e.getMessage());
+      }
+    }
+  }
+
+  private void set(T entity, String name, Object raw) {
+    FieldAccessor accessor = properties.get(name);
+    if (accessor == null) {
+      throw new IllegalArgumentException("Unknown field '" + name + "'");
+    }
+    if (raw == null) {
+      if (!accessor.type().isPrimitive()) {
+        accessor.set(entity, null);
+      }
+      return;
+    }
+    accessor.set(entity, SqlUtil.convertType(raw, accessor.type()));
+  }
+
+  private static final class Chunk<T> {
+    final List<T> rows;
+    final long[] rowNumbers;
+    final long[] lines;
+
+    Chunk(int size) {
+      this.rows = new ArrayList<>(size);
+      this.rowNumbers = new long[size];
+      this.lines = new long[size];
+    }
+  }
+
+  /**
+   * Bounded hand-off between the parsing thread and the writer thread
+   */
+  private final class Pipeline {
+    private final Chunk<T> end = new Chunk<>(0);
+    private final BlockingQueue<Chunk<T>> queue = new ArrayBlockingQueue<>(queueCapacity);
+    private final BatchWriter<T> batchWriter;
+    private final Thread writer;
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final List<IngestResult.RowError> errors =
+        Collections.synchronizedList(new ArrayList<>());
+    private volatile Exception writerFailure;
+    private volatile boolean aborted;
+    private Chunk<T> current;
+    private long rowsRead;
+
+    Pipeline(BatchWriter<T> batchWriter) {
+      this.batchWriter = batchWriter;
+      this.writer = Thread.ofVirtual().name("crane-ingest").unstarted(this::write);
+    }
+
+    boolean isAborted() {
+      return aborted;
+    }
+
+    void add(T entity, long row, long line) throws SQLException {
+      if (current == null) {
+        current = new Chunk<>(chunkSize);
+      }
+      int i = current.rows.size();
+      current.rows.add(entity);
+      current.rowNumbers[i] = row;
+      current.lines[i] = line;
+      if (current.rows.size() == chunkSize) {
+        hand(current);
+        current = null;
+      }
+    }
+
+    void fail(long row, long line, String message) {
+      long failed = rowsFailed.incrementAndGet();
+      if (failed <= maxErrors) {
+        errors.add(new IngestResult.RowError(row, line, message));
+      }
+      if (failed >= maxErrors) {
+        aborted = true;
+      }
+    }
+
+    void finish() throws SQLException {
+      if (current != null && !aborted) {
+        hand(current);
+      }
+      current = null;
+      hand(end);
+      join();
+      if (writerFailure != null) {
+        throw writerFailure instanceof SQLException sqlException ? sqlException
+            : new SQLException("Ingest writer failed", writerFailure);
+      }
+    }
+
+    void abort() {
+      aborted = true;
+      writer.interrupt();
+      join();
+    }
+
+    private void hand(Chunk<T> chunk) throws SQLException {
+      try {
+        // Blocks while the writer is behind, which is what keeps memory constant
+        while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+          if (!writer.isAlive()) {
+            throw new SQLException("Ingest writer stopped", writerFailure);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        abort();
+        throw new SQLException("Ingest interrupted", e);
+      }
+    }
+
+    private void join() {
+      try {
+        writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void write() {
+      try (Connection conn = DataSourceProvider.getConnection()) {
+        conn.setAutoCommit(false);
+        try {
+          Chunk<T> chunk;
+          while ((chunk = queue.take()) != end) {
+            if (!aborted) {
+              writeChunk(conn, chunk);
+            }
+          }
+        } finally {
+          conn.setAutoCommit(true);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        writerFailure = e;
+        aborted = true;
+      }
+    }
+
+    private void writeChunk(Connection conn, Chunk<T> chunk) throws SQLException {
+      try {
+        store(conn, chunk.rows);
+        conn.commit();
+        rowsWritten.addAndGet(chunk.rows.size());
+        return;
+      } catch (SQLException e) {
+        conn.rollback();
+        LOGGER.debug("Ingest chunk of {} rows failed, retrying row by row", chunk.rows.size(), e);
+      }
+
+      // Isolate the rows the database rejects
+      for (int i = 0; i < chunk.rows.size() && !aborted; i++) {
+        try {
+          store(conn, List.of(chunk.rows.get(i)));
+          conn.commit();
+          rowsWritten.incrementAndGet();
+        } catch (SQLException e) {
+          conn.rollback();
+          fail(chunk.rowNumbers[i], chunk.lines[i], e.getMessage());
+        }
+      }
+    }
+
+    private void store(Connection conn, List<T> rows) throws SQLException {
+      if (upsert) {
+        batchWriter.upsert(conn, rows);
+      } else {
+        batchWriter.insert(conn, rows);
+      }
+    }
+  }
+}
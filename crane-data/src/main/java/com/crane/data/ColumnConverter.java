@@ -0,0 +1,21 @@
+package com.crane.data;
+
+/**
+ * User conversion of a non-null column value, as returned by {@code ResultSet.getObject}, to a
+ * Java type, e.g. a JSON document or a custom enum encoding. Register it with
+ * {@link ColumnConverters#register}.
+ *
+ * <pre>
+ * ColumnConverters.register(Address.class,
+ *     (value, type) -&gt; objectMapper.readValue(value.toString(), type));
+ * </pre>
+ */
+@FunctionalInterface
+public interface ColumnConverter<T> {
+
+  /**
+   * @param value Non-null column value
+   * @param type  Mapped type, the registered type or a subtype of it
+   */
+  T convert(Object value, Class<? extends T> type) throws Exception;
+}
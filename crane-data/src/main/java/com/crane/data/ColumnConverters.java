@@ -0,0 +1,282 @@
+package com.crane.data;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of column readers, resolved once per (JDBC type, Java type) pair into a direct read
+ * instead of {@link SqlUtil#convertType}'s chain of checks per value. Numbers and booleans are read
+ * with the primitive getters plus {@code wasNull}, temporal columns with
+ * {@code getObject(index, type)}, enums through a precomputed lookup table.
+ *
+ * <p>Converters registered for a Java type (or one of its supertypes) take precedence over the
+ * built-in reads, for result mapping as well as for {@code convertType}.
+ */
+public final class ColumnConverters {
+
+  /**
+   * JDBC type wildcard for {@link #register(int, Class, ColumnConverter)}
+   */
+  public static final int ANY_JDBC_TYPE = Integer.MIN_VALUE;
+
+  private record Key(int jdbcType, Class<?> type) {
+  }
+
+  private static final Map<Key, ColumnConverter<?>> CONVERTERS = new ConcurrentHashMap<>();
+  private static final Map<Key, ColumnReader> READERS = new ConcurrentHashMap<>();
+
+  private ColumnConverters() {
+  }
+
+  /**
+   * Convert columns of any JDBC type mapped to {@code type} or its subtypes
+   */
+  public static <T> void register(Class<T> type, ColumnConverter<T> converter) {
+    register(ANY_JDBC_TYPE, type, converter);
+  }
+
+  /**
+   * Convert columns of one JDBC type ({@link Types}) mapped to {@code type} or its subtypes
+   */
+  public static <T> void register(int jdbcType, Class<T> type, ColumnConverter<T> converter) {
+    CONVERTERS.put(new Key(jdbcType, type), converter);
+    READERS.clear();
+    DtoMapper.clearPlans();
+  }
+
+  /**
+   * Reader of a column with the given JDBC type into a field or argument of the given type
+   */
+  static ColumnReader reader(int jdbcType, Class<?> type) {
+    Key key = new Key(jdbcType, type);
+    ColumnReader reader = READERS.get(key);
+    if (reader == null) {
+      reader = resolve(jdbcType, type);
+      READERS.put(key, reader);
+    }
+    return reader;
+  }
+
+  /**
+   * Whether a user converter applies to the type, overriding typed reads
+   */
+  static boolean hasConverter(int jdbcType, Class<?> type) {
+    return !CONVERTERS.isEmpty() && converterFor(jdbcType, type) != null;
+  }
+
+  /**
+   * Apply a user converter registered for any JDBC type, see {@link SqlUtil#convertType}
+   *
+   * @return the converted value, or null when no converter applies
+   */
+  static Object convert(Object value, Class<?> type) {
+    if (CONVERTERS.isEmpty()) {
+      return null;
+    }
+    ColumnConverter<?> converter = converterFor(ANY_JDBC_TYPE, type);
+    return converter == null ? null : apply(converter, value, type);
+  }
+
+  private static ColumnConverter<?> converterFor(int jdbcType, Class<?> type) {
+    for (Class<?> candidate = type; candidate != null; candidate = candidate.getSuperclass()) {
+      ColumnConverter<?> converter = lookup(jdbcType, candidate);
+      if (converter != null) {
+        return converter;
+      }
+      for (Class<?> contract : candidate.getInterfaces()) {
+        converter = lookup(jdbcType, contract);
+        if (converter != null) {
+          return converter;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static ColumnConverter<?> lookup(int jdbcType, Class<?> type) {
+    ColumnConverter<?> converter = CONVERTERS.get(new Key(jdbcType, type));
+    return converter != null ? converter : CONVERTERS.get(new Key(ANY_JDBC_TYPE, type));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object apply(ColumnConverter converter, Object value, Class<?> type) {
+    try {
+      return converter.convert(value, type);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to convert " + value.getClass().getSimpleName() + " to "
+          + type.getSimpleName() + ": " + e.getMessage(), e);
+    }
+  }
+
+  private static ColumnReader resolve(int jdbcType, Class<?> type) {
+    ColumnConverter<?> converter = CONVERTERS.isEmpty() ? null : converterFor(jdbcType, type);
+    if (converter != null) {
+      return (rs, index) -> {
+        Object value = rs.getObject(index);
+        return value == null ? null : apply(converter, value, type);
+      };
+    }
+
+    // Primitive targets get their default for NULL, wrappers get null
+    if (type == long.class) {
+      return ResultSet::getLong;
+    }
+    if (type == int.class) {
+      return ResultSet::getInt;
+    }
+    if (type == double.class) {
+      return ResultSet::getDouble;
+    }
+    if (type == Long.class) {
+      return (rs, index) -> {
+        long value = rs.getLong(index);
+        return rs.wasNull() ? null : value;
+      };
+    }
+    if (type == Integer.class) {
+      return (rs, index) -> {
+        int value = rs.getInt(index);
+        return rs.wasNull() ? null : value;
+      };
+    }
+    if (type == Double.class) {
+      return (rs, index) -> {
+        double value = rs.getDouble(index);
+        return rs.wasNull() ? null : value;
+      };
+    }
+    if (type == String.class) {
+      return ResultSet::getString;
+    }
+    if (isNumeric(jdbcType)) {
+      if (type == float.class || type == Float.class) {
+        return nullable(type, (rs, index) -> rs.getFloat(index));
+      }
+      if (type == short.class || type == Short.class) {
+        return nullable(type, (rs, index) -> rs.getShort(index));
+      }
+      if (type == byte.class || type == Byte.class) {
+        return nullable(type, (rs, index) -> rs.getByte(index));
+      }
+      if (type == BigDecimal.class) {
+        return ResultSet::getBigDecimal;
+      }
+    }
+    if ((type == boolean.class || type == Boolean.class)
+        && (jdbcType == Types.BOOLEAN || jdbcType == Types.BIT || isNumeric(jdbcType))) {
+      return nullable(type, (rs, index) -> rs.getBoolean(index));
+    }
+    if ((type == LocalDateTime.class && jdbcType == Types.TIMESTAMP)
+        || (type == LocalDate.class && jdbcType == Types.DATE)
+        || (type == LocalTime.class && jdbcType == Types.TIME)
+        || (type == OffsetDateTime.class && jdbcType == Types.TIMESTAMP_WITH_TIMEZONE)) {
+      return (rs, index) -> rs.getObject(index, type);
+    }
+    if (jdbcType == Types.TIMESTAMP || jdbcType == Types.TIMESTAMP_WITH_TIMEZONE) {
+      if (type == Instant.class) {
+        return (rs, index) -> {
+          Timestamp value = rs.getTimestamp(index);
+          return value == null ? null : value.toInstant();
+        };
+      }
+    }
+    if (type == byte[].class && isBinary(jdbcType)) {
+      return ResultSet::getBytes;
+    }
+    if (type == UUID.class) {
+      return (rs, index) -> {
+        Object value = rs.getObject(index);
+        if (value == null || value instanceof UUID) {
+          return value;
+        }
+        return value instanceof byte[] bytes // binary(16) column
+            ? Uuids.fromBytes(bytes) : UUID.fromString(value.toString());
+      };
+    }
+    if (type.isEnum()) {
+      return enumReader(jdbcType, type);
+    }
+
+    // Anything else: one generic conversion per value
+    Object nullValue = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+    return (rs, index) -> {
+      Object value = rs.getObject(index);
+      return value == null ? nullValue : SqlUtil.convertType(value, type);
+    };
+  }
+
+  /**
+   * Enum by ordinal for numeric columns, otherwise by name through a prebuilt table
+   */
+  private static ColumnReader enumReader(int jdbcType, Class<?> type) {
+    Object[] constants = type.getEnumConstants();
+    if (isNumeric(jdbcType)) {
+      return (rs, index) -> {
+        int ordinal = rs.getInt(index);
+        if (rs.wasNull()) {
+          return null;
+        }
+        if (ordinal < 0 || ordinal >= constants.length) {
+          throw new SQLException("No " + type.getSimpleName() + " with ordinal " + ordinal);
+        }
+        return constants[ordinal];
+      };
+    }
+    Map<String, Object> byName = new HashMap<>();
+    for (Object constant : constants) {
+      byName.put(((Enum<?>) constant).name(), constant);
+    }
+    return (rs, index) -> {
+      String name = rs.getString(index);
+      if (name == null) {
+        return null;
+      }
+      Object constant = byName.get(name);
+      if (constant == null) {
+        throw new SQLException("No " + type.getSimpleName() + " constant named " + name);
+      }
+      return constant;
+    };
+  }
+
+  /**
+   * Wrap a primitive getter so that wrapper targets get null for NULL
+   */
+  private static ColumnReader nullable(Class<?> type, ColumnReader getter) {
+    if (type.isPrimitive()) {
+      return getter;
+    }
+    return (rs, index) -> {
+      Object value = getter.read(rs, index);
+      return rs.wasNull() ? null : value;
+    };
+  }
+
+  private static boolean isNumeric(int jdbcType) {
+    return switch (jdbcType) {
+      case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.REAL, Types.FLOAT,
+           Types.DOUBLE, Types.NUMERIC, Types.DECIMAL -> true;
+      default -> false;
+    };
+  }
+
+  private static boolean isBinary(int jdbcType) {
+    return jdbcType == Types.BINARY || jdbcType == Types.VARBINARY
+        || jdbcType == Types.LONGVARBINARY || jdbcType == Types.BLOB;
+  }
+}
@@ -0,0 +1,14 @@
+package com.crane.data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads one column of the current row as a given Java type, resolved once per column by
+ * {@link ColumnConverters#reader(int, Class)}
+ */
+@FunctionalInterface
+interface ColumnReader {
+
+  Object read(ResultSet rs, int index) throws SQLException;
+}
@@ -0,0 +1,116 @@
+package com.crane.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reader: comma separated, fields optionally wrapped in double quotes, with
+ * {@code ""} as an escaped quote and line breaks allowed inside quotes. Reads one record at a time.
+ */
+final class CsvReader {
+
+  private final Reader reader;
+  private final StringBuilder field = new StringBuilder();
+  private int pending = -2; // -2 = nothing buffered
+  private long line = 1;
+  private long recordLine;
+
+  CsvReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Line on which the record last returned by {@link #next()} started
+   */
+  long recordLine() {
+    return recordLine;
+  }
+
+  /**
+   * @return the next record's fields, or null at the end of input
+   */
+  List<String> next() throws IOException {
+    int c = read();
+    while (c == '\r' || c == '\n') { // skip blank lines
+      c = read();
+    }
+    if (c == -1) {
+      return null;
+    }
+    recordLine = line;
+
+    List<String> record = new ArrayList<>();
+    boolean quoted = false;
+    boolean wasQuoted = false;
+    field.setLength(0);
+    while (true) {
+      if (quoted) {
+        if (c == -1) {
+          throw new IOException("Unterminated quoted field at line " + line);
+        }
+        if (c == '"') {
+          int next = read();
+          if (next == '"') {
+            field.append('"');
+          } else {
+            quoted = false;
+            c = next;
+            continue;
+          }
+        } else {
+          field.append((char) c);
+        }
+      } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+        quoted = true;
+        wasQuoted = true;
+      } else if (c == ',') {
+        record.add(take(wasQuoted));
+        wasQuoted = false;
+      } else if (c == '\r' || c == '\n' || c == -1) {
+        if (c == '\r') {
+          int next = read();
+          if (next != '\n') {
+            unread(next);
+          }
+        }
+        record.add(take(wasQuoted));
+        return record;
+      } else {
+        field.append((char) c);
+      }
+      c = read();
+    }
+  }
+
+  /**
+   * Current field; unquoted empty fields are null
+   */
+  private String take(boolean wasQuoted) {
+    String value = field.length() == 0 && !wasQuoted ? null : field.toString();
+    field.setLength(0);
+    return value;
+  }
+
+  private int read() throws IOException {
+    int c;
+    if (pending != -2) {
+      c = pending;
+      pending = -2;
+    } else {
+      c = reader.read();
+    }
+    if (c == '\n') {
+      line++;
+    }
+    return c;
+  }
+
+  private void unread(int c) {
+    if (c == '\n') {
+      line--;
+    }
+    pending = c;
+  }
+}
@@ -1,17 +1,43 @@
 package com.crane.data;
 
+import com.crane.core.config.DatabaseConfig;
+import com.crane.core.jdbc.QueryMetrics;
+import com.crane.data.dialect.Dialect;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Map;
 
 public class DataSourceProvider {
 
   private static HikariDataSource dataSource;
 
+  /**
+   * Initialise the pool from the database config, applying the configured SQL dialect and its batch
+   * rewrite driver properties
+   */
+  public static DataSource init(DatabaseConfig dbConfig) {
+    Dialect dialect;
+    if (dbConfig.getDialect() != null && !dbConfig.getDialect().isBlank()) {
+      dialect = Dialect.forName(dbConfig.getDialect());
+      Dialect.configure(dialect);
+    } else {
+      dialect = Dialect.forJdbcUrl(dbConfig.getJdbcUrl());
+    }
+    Map<String, String> properties = dbConfig.isBatchRewrite()
+        ? dialect.batchRewriteProperties() : Map.of();
+    return init(dbConfig.getJdbcUrl(), dbConfig.getUsername(), dbConfig.getPassword(), properties);
+  }
+
   public static DataSource init(String jdbcUrl, String username, String password) {
+    return init(jdbcUrl, username, password, Map.of());
+  }
+
+  private static DataSource init(String jdbcUrl, String username, String password,
+      Map<String, String> driverProperties) {
     HikariConfig config = new HikariConfig();
     config.setJdbcUrl(jdbcUrl);
     config.setUsername(username);
@@ -21,16 +47,23 @@ public class DataSourceProvider {
     config.setIdleTimeout(30000);
     config.setConnectionTimeout(3000);
     config.setLeakDetectionThreshold(5000);
+    driverProperties.forEach(config::addDataSourceProperty);
 
     dataSource = new HikariDataSource(config);
     return dataSource;
   }
 
+  public static boolean isInitialized() {
+    return dataSource != null;
+  }
+
   public static Connection getConnection() throws SQLException {
     if (dataSource == null) {
       throw new IllegalStateException("DataSourceProvider is not initialized. Call init() first.");
     }
-    return dataSource.getConnection();
+    long start = System.nanoTime();
+    Connection connection = dataSource.getConnection();
+    return QueryMetrics.instrument(connection, System.nanoTime() - start);
   }
 
   public static void shutdown() {
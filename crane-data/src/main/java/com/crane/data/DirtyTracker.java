@@ -0,0 +1,120 @@
+package com.crane.data;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column snapshots of the entities a repository loaded or wrote, held in a weak identity map so
+ * tracking never keeps an entity alive. Comparing an entity with its snapshot tells which columns
+ * an UPDATE has to write.
+ */
+final class DirtyTracker<T> {
+
+  private final FieldAccessor[] accessors;
+  private final int idIndex;
+  private final Map<IdentityKey, Object[]> snapshots = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+  DirtyTracker(EntityMeta<T> meta) {
+    this.accessors = new FieldAccessor[meta.columns().size()];
+    for (int i = 0; i < accessors.length; i++) {
+      accessors[i] = meta.accessor(meta.columns().get(i));
+    }
+    this.idIndex = meta.columns().indexOf(meta.idField());
+  }
+
+  /**
+   * Take (or replace) the snapshot of an entity that is now in sync with its row
+   */
+  T track(T entity) {
+    expunge();
+    Object[] values = new Object[accessors.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = copy(accessors[i].get(entity));
+    }
+    snapshots.put(new IdentityKey(entity, collected), values);
+    return entity;
+  }
+
+  /**
+   * Columns, by position in {@link EntityMeta#columns()}, whose value differs from the snapshot
+   *
+   * @return the changed columns, empty if none, or null when the entity is not tracked or its ID
+   *     changed, so its state in the database is unknown
+   */
+  BitSet changes(T entity) {
+    Object[] snapshot = snapshots.get(new IdentityKey(entity, null));
+    if (snapshot == null) {
+      return null;
+    }
+    BitSet changed = new BitSet(accessors.length);
+    for (int i = 0; i < accessors.length; i++) {
+      if (!Objects.deepEquals(snapshot[i], accessors[i].get(entity))) {
+        if (i == idIndex) {
+          return null;
+        }
+        changed.set(i);
+      }
+    }
+    return changed;
+  }
+
+  void forget(T entity) {
+    snapshots.remove(new IdentityKey(entity, null));
+  }
+
+  private void expunge() {
+    Reference<?> reference;
+    while ((reference = collected.poll()) != null) {
+      snapshots.remove(reference);
+    }
+  }
+
+  /**
+   * Arrays are the only mutable values mapped by default; copy them so in-place edits show
+   */
+  private static Object copy(Object value) {
+    if (value instanceof byte[] bytes) {
+      return Arrays.copyOf(bytes, bytes.length);
+    }
+    if (value instanceof Object[] array) {
+      return Arrays.copyOf(array, array.length);
+    }
+    return value;
+  }
+
+  /**
+   * Weak key compared by referent identity. Lookups use a key without a queue.
+   */
+  private static final class IdentityKey extends WeakReference<Object> {
+    private final int hash;
+
+    IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.hash = System.identityHashCode(referent);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof IdentityKey key)) {
+        return false;
+      }
+      Object referent = get();
+      return referent != null && referent == key.get();
+    }
+  }
+}
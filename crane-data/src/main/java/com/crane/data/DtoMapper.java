@@ -0,0 +1,292 @@
+package com.crane.data;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapping plan of one result-set shape onto a DTO class, compiled once per (class, column labels)
+ * and reused for every row and query of that shape. Depending on the class, a row is mapped
+ *
+ * <ul>
+ *   <li>to a scalar ({@code Long}, {@code String}, ...) from a single column,</li>
+ *   <li>to a record through its canonical constructor, matching components to columns by name or
+ *   else by position,</li>
+ *   <li>to the fields of a no-argument instance, matched by name, snake_case or ignoring case,
+ *   when every column matches a field,</li>
+ *   <li>else through a constructor taking one argument per column, in column order,</li>
+ *   <li>or else to the fields that do match.</li>
+ * </ul>
+ *
+ * The choice is made once per plan; a row the chosen way cannot map fails the query.
+ */
+final class DtoMapper<T> implements RowMapper<T> {
+
+  private static final int MAX_PLANS = 2048;
+  private static final Map<PlanKey, DtoMapper<?>> PLANS = new ConcurrentHashMap<>();
+  private static final MethodType SPREAD = MethodType.methodType(Object.class, Object[].class);
+
+  private record PlanKey(Class<?> type, List<String> columns, List<Integer> jdbcTypes) {
+  }
+
+  private final Class<T> type;
+
+  // Constructor plan: argument i is read from column argColumns[i]
+  private final MethodHandle constructor;
+  private final ColumnReader[] argReaders;
+  private final int[] argColumns;
+
+  // Field plan: fields[i] is read from column fieldColumns[i], through fieldReaders[i] if set
+  private final MethodHandle noArgs;
+  private final FieldAccessor[] fields;
+  private final ColumnReader[] fieldReaders;
+  private final int[] fieldColumns;
+
+  private DtoMapper(Class<T> type, MethodHandle constructor, ColumnReader[] argReaders,
+      int[] argColumns, MethodHandle noArgs, FieldAccessor[] fields, ColumnReader[] fieldReaders,
+      int[] fieldColumns) {
+    this.type = type;
+    this.constructor = constructor;
+    this.argReaders = argReaders;
+    this.argColumns = argColumns;
+    this.noArgs = noArgs;
+    this.fields = fields;
+    this.fieldReaders = fieldReaders;
+    this.fieldColumns = fieldColumns;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> DtoMapper<T> of(Class<T> type, ResultSetMetaData metaData) throws SQLException {
+    String[] labels = new String[metaData.getColumnCount()];
+    Integer[] jdbcTypes = new Integer[labels.length];
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = metaData.getColumnLabel(i + 1);
+      jdbcTypes[i] = metaData.getColumnType(i + 1);
+    }
+    PlanKey key = new PlanKey(type, List.of(labels), List.of(jdbcTypes));
+    DtoMapper<?> plan = PLANS.get(key);
+    if (plan == null) {
+      try {
+        plan = compile(type, labels, key.jdbcTypes());
+      } catch (IllegalArgumentException e) {
+        throw new SQLException("Failed to map ResultSet to DTO: " + type.getSimpleName(), e);
+      }
+      if (PLANS.size() >= MAX_PLANS) {
+        shrink();
+      }
+      PLANS.put(key, plan);
+    }
+    return (DtoMapper<T>) plan;
+  }
+
+  /**
+   * Drop a tenth of the plans, so queries built with varying column aliases cannot grow the map
+   * without bound
+   */
+  private static void shrink() {
+    int toRemove = MAX_PLANS / 10;
+    Iterator<PlanKey> it = PLANS.keySet().iterator();
+    while (toRemove-- > 0 && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  /**
+   * Forget compiled plans, e.g. after a converter was registered
+   */
+  static void clearPlans() {
+    PLANS.clear();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T map(ResultSet rs) throws SQLException {
+    if (constructor != null) {
+      try {
+        Object[] args = new Object[argReaders.length];
+        for (int i = 0; i < args.length; i++) {
+          args[i] = argReaders[i].read(rs, argColumns[i]);
+        }
+        return (T) (Object) constructor.invokeExact(args);
+      } catch (Throwable t) {
+        throw failure(t);
+      }
+    }
+    try {
+      Object instance = (Object) noArgs.invokeExact();
+      for (int i = 0; i < fields.length; i++) {
+        fields[i].read(rs, fieldColumns[i], instance, fieldReaders[i]);
+      }
+      return (T) instance;
+    } catch (Throwable t) {
+      throw failure(t);
+    }
+  }
+
+  private SQLException failure(Throwable t) {
+    if (t instanceof SQLException sqlException) {
+      return sqlException;
+    }
+    if (t instanceof Error error) {
+      throw error;
+    }
+    return new SQLException("Failed to map ResultSet to DTO: " + type.getSimpleName(), t);
+  }
+
+  private static <T> DtoMapper<T> compile(Class<T> type, String[] labels,
+      List<Integer> jdbcTypes) {
+    if (isScalar(type)) {
+      if (labels.length != 1) {
+        throw new IllegalArgumentException(
+            "Expected one column for " + type.getSimpleName() + ", got " + labels.length);
+      }
+      // The value itself is the only constructor argument
+      MethodHandle first = MethodHandles.insertArguments(
+          MethodHandles.arrayElementGetter(Object[].class), 1, 0);
+      return new DtoMapper<>(type, first,
+          new ColumnReader[] {ColumnConverters.reader(jdbcTypes.get(0), type)}, new int[] {1},
+          null, null, null, null);
+    }
+    if (type.isRecord()) {
+      return compileRecord(type, labels, jdbcTypes);
+    }
+
+    Constructor<?> positional = null;
+    for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+      if (candidate.getParameterCount() == labels.length && labels.length > 0) {
+        positional = candidate;
+        break;
+      }
+    }
+
+    MethodHandle noArgs = null;
+    List<FieldAccessor> fields = new ArrayList<>();
+    List<ColumnReader> fieldReaders = new ArrayList<>();
+    List<Integer> fieldColumns = new ArrayList<>();
+    try {
+      Constructor<T> candidate = type.getDeclaredConstructor();
+      candidate.setAccessible(true);
+      noArgs = MethodHandles.lookup().unreflectConstructor(candidate)
+          .asType(MethodType.methodType(Object.class));
+      for (int i = 0; i < labels.length; i++) {
+        Field field = SqlUtil.findFieldByName(type, labels[i]);
+        int modifiers = field == null ? 0 : field.getModifiers();
+        if (field != null && !Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+          FieldAccessor accessor = FieldAccessor.of(labels[i], field);
+          fields.add(accessor);
+          fieldReaders.add(accessor.readerFor(jdbcTypes.get(i)));
+          fieldColumns.add(i + 1);
+        }
+      }
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      if (positional == null) {
+        throw new IllegalArgumentException(type.getName()
+            + " needs a no-argument constructor or one taking " + labels.length + " arguments", e);
+      }
+    }
+
+    // Fields matched by name are safer than argument positions, so they win when all columns fit
+    if (positional != null && (noArgs == null || fields.size() < labels.length)) {
+      int[] argColumns = sequence(labels.length);
+      return new DtoMapper<>(type, spreader(positional),
+          readers(positional.getParameterTypes(), argColumns, jdbcTypes), argColumns,
+          null, null, null, null);
+    }
+    return new DtoMapper<>(type, null, null, null, noArgs,
+        fields.toArray(new FieldAccessor[0]), fieldReaders.toArray(new ColumnReader[0]),
+        fieldColumns.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  private static <T> DtoMapper<T> compileRecord(Class<T> type, String[] labels,
+      List<Integer> jdbcTypes) {
+    RecordComponent[] components = type.getRecordComponents();
+    Class<?>[] componentTypes = new Class<?>[components.length];
+    for (int i = 0; i < components.length; i++) {
+      componentTypes[i] = components[i].getType();
+    }
+
+    // Match components to columns by name, or else take the columns in order
+    int[] argColumns = new int[components.length];
+    boolean byName = true;
+    for (int i = 0; i < components.length && byName; i++) {
+      argColumns[i] = columnFor(components[i].getName(), labels);
+      byName = argColumns[i] > 0;
+    }
+    if (!byName) {
+      if (components.length != labels.length) {
+        throw new IllegalArgumentException("Cannot map columns " + List.of(labels)
+            + " to the components of " + type.getSimpleName());
+      }
+      argColumns = sequence(labels.length);
+    }
+
+    try {
+      return new DtoMapper<>(type, spreader(type.getDeclaredConstructor(componentTypes)),
+          readers(componentTypes, argColumns, jdbcTypes), argColumns, null, null, null, null);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException("No canonical constructor on " + type.getName(), e);
+    }
+  }
+
+  private static int columnFor(String name, String[] labels) {
+    for (int i = 0; i < labels.length; i++) {
+      String label = labels[i];
+      if (label.equalsIgnoreCase(name) || SqlUtil.toCamelCase(label).equalsIgnoreCase(name)) {
+        return i + 1;
+      }
+    }
+    return 0;
+  }
+
+  private static MethodHandle spreader(Constructor<?> constructor) {
+    try {
+      constructor.setAccessible(true);
+      return MethodHandles.lookup().unreflectConstructor(constructor)
+          .asSpreader(Object[].class, constructor.getParameterCount())
+          .asType(SPREAD);
+    } catch (IllegalAccessException | RuntimeException e) {
+      throw new IllegalArgumentException(
+          "Cannot access constructor of " + constructor.getDeclaringClass().getName(), e);
+    }
+  }
+
+  private static ColumnReader[] readers(Class<?>[] types, int[] columns,
+      List<Integer> jdbcTypes) {
+    ColumnReader[] readers = new ColumnReader[types.length];
+    for (int i = 0; i < types.length; i++) {
+      readers[i] = ColumnConverters.reader(jdbcTypes.get(columns[i] - 1), types[i]);
+    }
+    return readers;
+  }
+
+  private static int[] sequence(int count) {
+    int[] columns = new int[count];
+    for (int i = 0; i < count; i++) {
+      columns[i] = i + 1;
+    }
+    return columns;
+  }
+
+  private static boolean isScalar(Class<?> type) {
+    return type.isPrimitive() || type == String.class || Number.class.isAssignableFrom(type)
+        || type == Boolean.class || type == Character.class || type == UUID.class
+        || type == BigDecimal.class || type.isEnum() || Temporal.class.isAssignableFrom(type)
+        || java.util.Date.class.isAssignableFrom(type);
+  }
+}
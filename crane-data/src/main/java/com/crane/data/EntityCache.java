@@ -0,0 +1,245 @@
+package com.crane.data;
+
+import com.crane.core.ConnectionHolder;
+import com.crane.core.transaction.TransactionSynchronization;
+import com.crane.data.annotation.Cacheable;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Second-level cache of one entity type, shared by all of its repositories. Rows are stored as
+ * column value snapshots and copied into a fresh instance on every hit, so callers can mutate what
+ * they get. The map is bounded by size (random eviction in batches) and by a TTL.
+ *
+ * <p>Writes evict immediately. Inside a transaction they also evict again after commit, and until
+ * then the writing transaction bypasses the cache, so neither its uncommitted rows nor stale
+ * committed ones leak. A read only populates the cache if no eviction happened while it ran.
+ */
+public final class EntityCache<T> {
+
+  private static final Map<Class<?>, EntityCache<?>> CACHES = new ConcurrentHashMap<>();
+
+  /**
+   * Point-in-time counters of a cache
+   */
+  public record Stats(long hits, long misses, long evictions, int size) {
+    public double hitRatio() {
+      long requests = hits + misses;
+      return requests == 0 ? 0 : (double) hits / requests;
+    }
+  }
+
+  private record Entry(Object[] values, long expiresAt) {
+  }
+
+  private final EntityMeta<T> meta;
+  private final FieldAccessor[] accessors;
+  private final Class<?> idType;
+  private final int maxSize;
+  private final long ttlNanos;
+  private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong stamp = new AtomicLong();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private EntityCache(EntityMeta<T> meta, int maxSize, Duration ttl) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be > 0");
+    }
+    this.meta = meta;
+    this.accessors = new FieldAccessor[meta.columns().size()];
+    for (int i = 0; i < accessors.length; i++) {
+      accessors[i] = meta.accessor(meta.columns().get(i));
+    }
+    this.idType = meta.getField(meta.idField()).getType();
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  /**
+   * The entity's cache as declared by {@link Cacheable}, else the one a repository created with
+   * explicit settings, or null if there is neither
+   */
+  static <T> EntityCache<T> forEntity(EntityMeta<T> meta) {
+    Cacheable cacheable = meta.type().getAnnotation(Cacheable.class);
+    if (cacheable == null) {
+      return existing(meta);
+    }
+    return forEntity(meta, cacheable.maxSize(), Duration.ofSeconds(cacheable.ttlSeconds()));
+  }
+
+  /**
+   * The entity's cache, created with these settings by the first repository asking for it
+   */
+  @SuppressWarnings("unchecked")
+  static <T> EntityCache<T> forEntity(EntityMeta<T> meta, int maxSize, Duration ttl) {
+    return (EntityCache<T>) CACHES.computeIfAbsent(meta.type(),
+        type -> new EntityCache<>(meta, maxSize, ttl));
+  }
+
+  /**
+   * The entity's cache if a repository has created it, or null
+   */
+  @SuppressWarnings("unchecked")
+  static <T> EntityCache<T> existing(EntityMeta<T> meta) {
+    return (EntityCache<T>) CACHES.get(meta.type());
+  }
+
+  /**
+   * @return a copy of the cached entity, or null on a miss
+   */
+  T get(Object id) {
+    if (isBypassed()) {
+      return null;
+    }
+    Object key = key(id);
+    Entry entry = entries.get(key);
+    if (entry == null || System.nanoTime() - entry.expiresAt() >= 0) {
+      if (entry != null) {
+        entries.remove(key, entry);
+      }
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    T entity = meta.newInstance();
+    for (int i = 0; i < accessors.length; i++) {
+      accessors[i].set(entity, entry.values()[i]);
+    }
+    return entity;
+  }
+
+  /**
+   * Stamp to take before reading from the database and hand to {@link #put}
+   */
+  long stamp() {
+    return stamp.get();
+  }
+
+  /**
+   * Cache a row read from the database, unless something was evicted since {@code readStamp} (the
+   * row may predate that write) or the current transaction has written this entity
+   */
+  void put(T entity, long readStamp) {
+    if (isBypassed()) {
+      return;
+    }
+    Object[] values = new Object[accessors.length];
+    for (int i = 0; i < accessors.length; i++) {
+      values[i] = accessors[i].get(entity);
+    }
+    Object key = key(meta.getValue(entity, meta.idField()));
+    Entry entry = new Entry(values, System.nanoTime() + ttlNanos);
+    if (stamp.get() != readStamp) {
+      return;
+    }
+    entries.put(key, entry);
+    if (stamp.get() != readStamp) {
+      entries.remove(key, entry); // an eviction raced with the put
+    }
+    if (entries.size() > maxSize) {
+      shrink();
+    }
+  }
+
+  void evict(Object id) {
+    stamp.incrementAndGet();
+    entries.remove(key(id));
+    Pending pending = pending();
+    if (pending != null) {
+      pending.ids.add(key(id));
+    }
+  }
+
+  void evictAll() {
+    stamp.incrementAndGet();
+    entries.clear();
+    Pending pending = pending();
+    if (pending != null) {
+      pending.all = true;
+    }
+  }
+
+  public Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+  }
+
+  /**
+   * Whether the current transaction has written this entity and must read from the database
+   */
+  private boolean isBypassed() {
+    return ConnectionHolder.isTransactional() && ConnectionHolder.getResource(this) != null;
+  }
+
+  private Object key(Object id) {
+    return SqlUtil.idKey(id, idType); // e.g. an Integer literal for a Long ID
+  }
+
+  /**
+   * Drop expired rows, then random ones, until the cache is back to 90% of its bound
+   */
+  private void shrink() {
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      long now = System.nanoTime();
+      int target = Math.max(0, maxSize - maxSize / 10);
+      Iterator<Entry> it = entries.values().iterator();
+      while (it.hasNext()) {
+        if (now - it.next().expiresAt() >= 0) {
+          it.remove();
+          evictions.increment();
+        }
+      }
+      it = entries.values().iterator();
+      while (entries.size() > target && it.hasNext()) {
+        it.next();
+        it.remove();
+        evictions.increment();
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  private Pending pending() {
+    if (!ConnectionHolder.isTransactional()) {
+      return null;
+    }
+    Pending pending = (Pending) ConnectionHolder.getResource(this);
+    if (pending == null) {
+      pending = new Pending();
+      ConnectionHolder.bindResource(this, pending);
+      ConnectionHolder.registerSynchronization(pending);
+    }
+    return pending;
+  }
+
+  /**
+   * Rows written by one transaction, evicted again once it commits
+   */
+  private final class Pending implements TransactionSynchronization {
+    private final Set<Object> ids = new HashSet<>();
+    private boolean all;
+
+    @Override
+    public void afterCommit() {
+      stamp.incrementAndGet();
+      if (all) {
+        entries.clear();
+      } else {
+        ids.forEach(entries::remove);
+      }
+    }
+  }
+}
@@ -2,11 +2,19 @@ package com.crane.data;
 
 import com.crane.data.annotation.AutoGenerated;
 import com.crane.data.annotation.AutoGenerated.Strategy;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class EntityMeta<T> {
 
@@ -16,15 +24,73 @@ public class EntityMeta<T> {
   private final List<String> columns;
   private final Map<String, Field> fieldMap;
   private final Set<String> autoGeneratedFields;
+  private final Map<String, FieldAccessor> accessors = new HashMap<>();
+  private final Map<String, Strategy> strategies = new HashMap<>();
+  private final Map<String, SequenceBlockAllocator> allocators = new HashMap<>();
+  private final Set<String> databaseGeneratedFields;
+  private final Set<String> applicationGeneratedFields;
+  private final MethodHandle constructor;
+  private final EntityStatements statements;
+  private final Map<String, Field> relations;
 
   public EntityMeta(Class<T> type, String table, String idField, List<String> columns,
       Map<String, Field> fieldMap, Set<String> autoGeneratedFields) {
+    this(type, table, idField, columns, fieldMap, autoGeneratedFields, Map.of());
+  }
+
+  /**
+   * @param relations {@code @ManyToOne} and {@code @OneToMany} fields by field name
+   */
+  public EntityMeta(Class<T> type, String table, String idField, List<String> columns,
+      Map<String, Field> fieldMap, Set<String> autoGeneratedFields, Map<String, Field> relations) {
     this.type = type;
     this.table = table;
     this.idField = idField;
     this.columns = columns;
     this.fieldMap = fieldMap;
     this.autoGeneratedFields = autoGeneratedFields;
+    this.relations = Collections.unmodifiableMap(relations);
+
+    for (String column : columns) {
+      accessors.put(column, FieldAccessor.of(column, fieldMap.get(column)));
+    }
+
+    // Resolve generation strategies once instead of re-reading annotations per insert
+    Set<String> databaseGenerated = new HashSet<>();
+    Set<String> applicationGenerated = new HashSet<>();
+    for (String column : autoGeneratedFields) {
+      Field field = fieldMap.get(column);
+      AutoGenerated annotation = field != null ? field.getAnnotation(AutoGenerated.class) : null;
+      if (annotation == null) {
+        continue;
+      }
+      strategies.put(column, annotation.strategy());
+      if (annotation.strategy() == Strategy.SEQUENCE_BLOCK) {
+        String sequence = annotation.sequence().isEmpty() ? table + "_seq" : annotation.sequence();
+        allocators.put(column, SequenceBlockAllocator.forSequence(sequence, annotation.blockSize()));
+      }
+      if (annotation.strategy() == Strategy.DATABASE) {
+        databaseGenerated.add(column);
+      } else {
+        applicationGenerated.add(column);
+      }
+    }
+    this.databaseGeneratedFields = Collections.unmodifiableSet(databaseGenerated);
+    this.applicationGeneratedFields = Collections.unmodifiableSet(applicationGenerated);
+
+    this.constructor = findConstructor(type);
+    this.statements = new EntityStatements(this);
+  }
+
+  private static MethodHandle findConstructor(Class<?> type) {
+    try {
+      Constructor<?> noArgs = type.getDeclaredConstructor();
+      noArgs.setAccessible(true);
+      return MethodHandles.lookup().unreflectConstructor(noArgs)
+          .asType(MethodType.methodType(Object.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null; // reported when an instance is first needed
+    }
   }
 
   public Class<T> type() {
@@ -47,6 +113,56 @@ public class EntityMeta<T> {
     return fieldMap.get(columnName);
   }
 
+  /**
+   * Relation fields by field name, in declaration order
+   */
+  public Map<String, Field> relations() {
+    return relations;
+  }
+
+  /**
+   * Precomputed CRUD statements for this entity
+   */
+  public EntityStatements statements() {
+    return statements;
+  }
+
+  FieldAccessor accessor(String columnName) {
+    return accessors.get(columnName);
+  }
+
+  /**
+   * Read a mapped field's value
+   */
+  public Object getValue(T entity, String columnName) {
+    return accessors.get(columnName).get(entity);
+  }
+
+  public void setValue(T entity, String columnName, Object value) {
+    accessors.get(columnName).set(entity, value);
+  }
+
+  @SuppressWarnings("unchecked")
+  public T newInstance() {
+    if (constructor == null) {
+      throw new IllegalStateException(type.getName() + " must declare a no-argument constructor");
+    }
+    try {
+      return (T) (Object) constructor.invokeExact();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new RuntimeException("Failed to instantiate " + type.getName(), t);
+    }
+  }
+
+  /**
+   * Row mapper for the given result set, with column positions resolved from its metadata
+   */
+  public RowMapper<T> rowMapper(ResultSet rs) throws SQLException {
+    return new EntityRowMapper<>(this, rs.getMetaData());
+  }
+
   public boolean isAutoGenerated(String columnName) {
     return autoGeneratedFields.contains(columnName);
   }
@@ -60,64 +176,44 @@ public class EntityMeta<T> {
   }
 
   /**
-   * Check if field is generated by the database (exclude from INSERT)
+   * Generation strategy of an {@code @AutoGenerated} column, or null for a plain column
    */
-  public boolean isDatabaseGenerated(String columnName) {
-    if (!isAutoGenerated(columnName)) {
-      return false;
-    }
-
-    Field field = getField(columnName);
-    if (field == null) {
-      return false;
-    }
+  public Strategy generationStrategy(String columnName) {
+    return strategies.get(columnName);
+  }
 
-    AutoGenerated annotation = field.getAnnotation(AutoGenerated.class);
-    if (annotation == null) {
-      return false;
-    }
+  /**
+   * ID block allocator of a {@link Strategy#SEQUENCE_BLOCK} column, or null for other columns
+   */
+  SequenceBlockAllocator allocator(String columnName) {
+    return allocators.get(columnName);
+  }
 
-    AutoGenerated.Strategy strategy = annotation.strategy();
-    return strategy == Strategy.DATABASE;
+  /**
+   * Check if field is generated by the database (exclude from INSERT)
+   */
+  public boolean isDatabaseGenerated(String columnName) {
+    return databaseGeneratedFields.contains(columnName);
   }
 
   /**
    * Check if field is generated by application (include in INSERT after generation)
    */
   public boolean isApplicationGenerated(String columnName) {
-    if (!isAutoGenerated(columnName)) {
-      return false;
-    }
-
-    Field field = getField(columnName);
-    if (field == null) {
-      return false;
-    }
-
-    AutoGenerated annotation = field.getAnnotation(AutoGenerated.class);
-    if (annotation == null) {
-      return false;
-    }
-
-    AutoGenerated.Strategy strategy = annotation.strategy();
-    return strategy == AutoGenerated.Strategy.UUID;
+    return applicationGeneratedFields.contains(columnName);
   }
 
   /**
    * Get fields that need database-generated keys returned
    */
   public Set<String> getDatabaseGeneratedFields() {
-    return autoGeneratedFields.stream()
-        .filter(this::isDatabaseGenerated)
-        .collect(Collectors.toSet());
+    return databaseGeneratedFields;
   }
 
   /**
    * Get fields that need application generation before insert
    */
   public Set<String> getApplicationGeneratedFields() {
-    return autoGeneratedFields.stream()
-        .filter(this::isApplicationGenerated)
-        .collect(Collectors.toSet());
+    return applicationGeneratedFields;
   }
-}
\ No newline at end of file
+}
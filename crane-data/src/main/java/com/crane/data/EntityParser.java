@@ -4,12 +4,26 @@ import com.crane.data.annotation.AutoGenerated;
 import com.crane.data.annotation.Column;
 import com.crane.data.annotation.Entity;
 import com.crane.data.annotation.Id;
+import com.crane.data.annotation.ManyToOne;
+import com.crane.data.annotation.OneToMany;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EntityParser {
 
+  private static final Map<Class<?>, EntityMeta<?>> CACHE = new ConcurrentHashMap<>();
+
+  /**
+   * Parse an entity class. The result, including its statement catalog, is built once per class and
+   * shared by every repository of that entity.
+   */
+  @SuppressWarnings("unchecked")
   public static <T> EntityMeta<T> parse(Class<T> clazz) {
+    return (EntityMeta<T>) CACHE.computeIfAbsent(clazz, EntityParser::doParse);
+  }
+
+  private static <T> EntityMeta<T> doParse(Class<T> clazz) {
     if (!clazz.isAnnotationPresent(Entity.class)) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is missing @Entity annotation");
     }
@@ -23,10 +37,17 @@ public class EntityParser {
     List<String> columns = new ArrayList<>();
     Map<String, Field> fieldMap = new HashMap<>();
     Set<String> autoGeneratedFields = new HashSet<>();
+    Map<String, Field> relations = new LinkedHashMap<>();
 
     for (Field field : clazz.getDeclaredFields()) {
       field.setAccessible(true);
 
+      // Relations are not columns; they are filled by a FetchPlan
+      if (field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToMany.class)) {
+        relations.put(field.getName(), field);
+        continue;
+      }
+
       String columnName = field.getName();
       if (field.isAnnotationPresent(Column.class)) {
         String customName = field.getAnnotation(Column.class).name();
@@ -53,7 +74,8 @@ public class EntityParser {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is missing a field annotated with @Id");
     }
 
-    return new EntityMeta<>(clazz, tableName, idFieldName, columns, fieldMap, autoGeneratedFields);
+    return new EntityMeta<>(clazz, tableName, idFieldName, columns, fieldMap, autoGeneratedFields,
+        relations);
   }
 
   public static String camelToSnake(String input) {
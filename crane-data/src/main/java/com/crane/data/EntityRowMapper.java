@@ -0,0 +1,65 @@
+package com.crane.data;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Row mapper bound to the shape of one result set: column positions are resolved from the metadata
+ * once, so every row is read by index through the entity's compiled {@link FieldAccessor}s, or
+ * through the {@link ColumnConverters} reader resolved for the column's JDBC type.
+ * Entity columns missing from the result set are left untouched.
+ */
+final class EntityRowMapper<T> implements RowMapper<T> {
+
+  private final EntityMeta<T> meta;
+  private final FieldAccessor[] accessors;
+  private final ColumnReader[] readers;
+  private final int[] indexes;
+
+  EntityRowMapper(EntityMeta<T> meta, ResultSetMetaData metaData) throws SQLException {
+    this.meta = meta;
+
+    Map<String, Integer> positions = new HashMap<>();
+    for (int i = metaData.getColumnCount(); i >= 1; i--) {
+      positions.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+    }
+
+    List<FieldAccessor> matched = new ArrayList<>();
+    List<ColumnReader> matchedReaders = new ArrayList<>();
+    List<Integer> matchedIndexes = new ArrayList<>();
+    for (String column : meta.columns()) {
+      Integer position = positions.get(column.toLowerCase(Locale.ROOT));
+      if (position != null) {
+        FieldAccessor accessor = meta.accessor(column);
+        matched.add(accessor);
+        matchedReaders.add(accessor.readerFor(metaData.getColumnType(position)));
+        matchedIndexes.add(position);
+      }
+    }
+    this.accessors = matched.toArray(new FieldAccessor[0]);
+    this.readers = matchedReaders.toArray(new ColumnReader[0]);
+    this.indexes = matchedIndexes.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Whether the result set holds every column of the entity
+   */
+  boolean isComplete() {
+    return accessors.length == meta.columns().size();
+  }
+
+  @Override
+  public T map(ResultSet rs) throws SQLException {
+    T instance = meta.newInstance();
+    for (int i = 0; i < accessors.length; i++) {
+      accessors[i].read(rs, indexes[i], instance, readers[i]);
+    }
+    return instance;
+  }
+}
@@ -0,0 +1,215 @@
+package com.crane.data;
+
+import com.crane.data.dialect.Dialect;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable catalog of the CRUD statements for one entity. SQL text, column lists and parameter
+ * binders are resolved once when the entity is parsed, so the write path does no string building or
+ * column filtering.
+ */
+public final class EntityStatements {
+
+  private final String table;
+  private final String idColumn;
+  private final List<String> columns;
+  private final String selectAll;
+  private final String selectById;
+  private final String existsById;
+  private final String insert;
+  private final String update;
+  private final String deleteById;
+  private final String count;
+
+  private final List<String> insertColumns;
+  private final List<String> updateColumns;
+  private final List<String> generatedKeyColumns;
+
+  private final FieldAccessor[] insertBinders;
+  private final FieldAccessor[] updateBinders;
+  private final FieldAccessor[] generatedKeyAccessors;
+  private final FieldAccessor[] upsertBinders;
+  private final Map<Dialect, String> upserts = new ConcurrentHashMap<>();
+  private final Map<Dialect, String> returningInserts = new ConcurrentHashMap<>();
+  private final Map<BitSet, PartialUpdate> partialUpdates = new ConcurrentHashMap<>();
+  private final EntityMeta<?> meta;
+
+  /**
+   * UPDATE of a subset of the columns, with its binders: the SET columns, then the ID
+   */
+  record PartialUpdate(String sql, FieldAccessor[] binders) {
+  }
+
+  EntityStatements(EntityMeta<?> meta) {
+    String table = meta.table();
+    String id = meta.idField();
+    this.meta = meta;
+    this.table = table;
+    this.idColumn = id;
+    this.columns = List.copyOf(meta.columns());
+
+    this.insertColumns = meta.columns().stream()
+        .filter(col -> !meta.isDatabaseGenerated(col)) // Only exclude DB-generated
+        .toList();
+    this.updateColumns = meta.columns().stream()
+        .filter(col -> !col.equals(id))
+        .toList();
+    this.generatedKeyColumns = meta.columns().stream()
+        .filter(meta::isDatabaseGenerated)
+        .toList();
+
+    this.selectAll = "SELECT * FROM " + table;
+    this.selectById = "SELECT * FROM " + table + " WHERE " + id + " = ?";
+    this.existsById = "SELECT 1 FROM " + table + " WHERE " + id + " = ?";
+    this.deleteById = "DELETE FROM " + table + " WHERE " + id + " = ?";
+    this.count = "SELECT COUNT(*) FROM " + table;
+    this.insert = insertColumns.isEmpty() ? null
+        : "INSERT INTO " + table + " (" + String.join(", ", insertColumns) + ") VALUES ("
+            + placeholders(insertColumns.size()) + ")";
+    this.update = updateColumns.isEmpty() ? null
+        : "UPDATE " + table + " SET " + String.join(" = ?, ", updateColumns) + " = ? WHERE " + id
+            + " = ?";
+
+    this.insertBinders = accessors(meta, insertColumns);
+    this.updateBinders = accessors(meta, concat(updateColumns, id));
+    this.generatedKeyAccessors = accessors(meta, generatedKeyColumns);
+    this.upsertBinders = accessors(meta, columns);
+  }
+
+  static String placeholders(int count) {
+    StringBuilder sb = new StringBuilder(count * 3);
+    for (int i = 0; i < count; i++) {
+      sb.append(i == 0 ? "?" : ", ?");
+    }
+    return sb.toString();
+  }
+
+  private static List<String> concat(List<String> columns, String last) {
+    String[] all = columns.toArray(new String[columns.size() + 1]);
+    all[columns.size()] = last;
+    return List.of(all);
+  }
+
+  private static FieldAccessor[] accessors(EntityMeta<?> meta, List<String> columns) {
+    FieldAccessor[] result = new FieldAccessor[columns.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = meta.accessor(columns.get(i));
+    }
+    return result;
+  }
+
+  public String selectAll() { return selectAll; }
+  public String selectById() { return selectById; }
+  public String existsById() { return existsById; }
+  public String deleteById() { return deleteById; }
+  public String count() { return count; }
+
+  /**
+   * @return the INSERT statement, or null when every column is database-generated
+   */
+  public String insert() { return insert; }
+
+  /**
+   * @return the UPDATE statement, or null when the entity has no column besides its ID
+   */
+  public String update() { return update; }
+
+  public List<String> insertColumns() { return insertColumns; }
+  public List<String> updateColumns() { return updateColumns; }
+  public List<String> generatedKeyColumns() { return generatedKeyColumns; }
+
+  public boolean needsGeneratedKeys() {
+    return !generatedKeyColumns.isEmpty();
+  }
+
+  /**
+   * Upsert statement for the dialect, built on first use. Entities with database-generated columns
+   * have none, because an upsert cannot report which of its two paths produced their values.
+   *
+   * @return the statement, or null when the entity or the dialect does not support upserts
+   */
+  public String upsert(Dialect dialect) {
+    if (needsGeneratedKeys() || !dialect.supportsUpsert()) {
+      return null;
+    }
+    return upserts.computeIfAbsent(dialect,
+        d -> d.upsert(table, idColumn, columns, updateColumns));
+  }
+
+  /**
+   * Bind the insertable columns of the entity, in {@link #insertColumns()} order
+   */
+  void bindInsert(PreparedStatement stmt, Object entity) throws SQLException {
+    bind(stmt, entity, insertBinders, 1);
+  }
+
+  /**
+   * Bind the SET columns followed by the ID of the WHERE clause
+   */
+  void bindUpdate(PreparedStatement stmt, Object entity) throws SQLException {
+    bind(stmt, entity, updateBinders, 1);
+  }
+
+  /**
+   * INSERT that returns the database-generated columns itself, built on first use
+   *
+   * @return the statement, or null when nothing is generated or the dialect has no RETURNING
+   */
+  public String insertReturning(Dialect dialect) {
+    if (insert == null || !needsGeneratedKeys() || !dialect.supportsReturning()) {
+      return null;
+    }
+    return returningInserts.computeIfAbsent(dialect,
+        d -> d.returning(insert, generatedKeyColumns));
+  }
+
+  /**
+   * UPDATE of only the given columns, built on first use per column combination
+   *
+   * @param changed Positions in the entity's columns; must not include the ID
+   */
+  PartialUpdate partialUpdate(BitSet changed) {
+    PartialUpdate partial = partialUpdates.get(changed);
+    if (partial == null) {
+      List<String> set = new ArrayList<>();
+      changed.stream().forEach(i -> set.add(columns.get(i)));
+      String sql = "UPDATE " + table + " SET " + String.join(" = ?, ", set) + " = ? WHERE "
+          + idColumn + " = ?";
+      partial = new PartialUpdate(sql, accessors(meta, concat(set, idColumn)));
+      partialUpdates.put((BitSet) changed.clone(), partial);
+    }
+    return partial;
+  }
+
+  /**
+   * Bind every column of the entity, in declaration order, for {@link #upsert(Dialect)}
+   */
+  void bindUpsert(PreparedStatement stmt, Object entity) throws SQLException {
+    bind(stmt, entity, upsertBinders, 1);
+  }
+
+  FieldAccessor[] insertBinders() {
+    return insertBinders;
+  }
+
+  FieldAccessor[] updateBinders() {
+    return updateBinders;
+  }
+
+  FieldAccessor[] generatedKeyAccessors() {
+    return generatedKeyAccessors;
+  }
+
+  static void bind(PreparedStatement stmt, Object entity, FieldAccessor[] binders, int offset)
+      throws SQLException {
+    for (int i = 0; i < binders.length; i++) {
+      binders[i].bind(stmt, offset + i, entity);
+    }
+  }
+}
@@ -0,0 +1,294 @@
+package com.crane.data;
+
+import com.crane.data.annotation.ManyToOne;
+import com.crane.data.annotation.OneToMany;
+import com.crane.data.dialect.Dialect;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Relations to load for a set of already fetched entities. Each included relation costs one
+ * {@code IN (...)} query per chunk of keys, whatever the number of parents, instead of one query
+ * per parent; the rows are then stitched onto their parents in memory. Relations are never loaded
+ * implicitly: a field that is not part of a plan stays null.
+ *
+ * <pre>
+ * FetchPlan&lt;Order&gt; plan = FetchPlan.of(Order.class)
+ *     .include("customer")
+ *     .include("lines", FetchPlan.of(OrderLine.class).include("product"));
+ * orderRepository.fetch(orders, plan);
+ * </pre>
+ *
+ * A plan is immutable once built and can be shared between threads.
+ */
+public final class FetchPlan<T> {
+
+  private final EntityMeta<T> meta;
+  private final Map<String, Relation> relations = new LinkedHashMap<>();
+
+  /**
+   * One relation of the plan. Rows of {@code target} are selected where {@code targetColumn} is in
+   * the values of the parents' {@code parentColumn}.
+   */
+  private record Relation(Field field, boolean toMany, EntityMeta<?> target, String parentColumn,
+      String targetColumn, FetchPlan<?> nested) {
+  }
+
+  private FetchPlan(EntityMeta<T> meta) {
+    this.meta = meta;
+  }
+
+  public static <T> FetchPlan<T> of(Class<T> type) {
+    return new FetchPlan<>(EntityParser.parse(type));
+  }
+
+  public Class<T> type() {
+    return meta.type();
+  }
+
+  /**
+   * Load the relation field of the given name
+   *
+   * @throws IllegalArgumentException if the field is not a {@code @ManyToOne} or
+   *                                  {@code @OneToMany} relation
+   */
+  public FetchPlan<T> include(String relation) {
+    return include(relation, null);
+  }
+
+  /**
+   * Load the relation field of the given name, then the nested plan's relations on the loaded
+   * entities
+   */
+  public FetchPlan<T> include(String relation, FetchPlan<?> nested) {
+    Field field = meta.relations().get(relation);
+    if (field == null) {
+      throw new IllegalArgumentException(
+          "No relation '" + relation + "' on " + meta.type().getSimpleName());
+    }
+
+    Relation resolved;
+    ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+    if (manyToOne != null) {
+      EntityMeta<?> target = EntityParser.parse(field.getType());
+      resolved = new Relation(field, false, target, requireColumn(meta, manyToOne.joinColumn()),
+          target.idField(), nested);
+    } else {
+      EntityMeta<?> target = EntityParser.parse(elementType(field));
+      resolved = new Relation(field, true, target, meta.idField(),
+          requireColumn(target, field.getAnnotation(OneToMany.class).mappedBy()), nested);
+    }
+    if (nested != null && nested.type() != resolved.target().type()) {
+      throw new IllegalArgumentException("Nested plan for '" + relation + "' must be for "
+          + resolved.target().type().getSimpleName() + ", not " + nested.type().getSimpleName());
+    }
+    relations.put(relation, resolved);
+    return this;
+  }
+
+  /**
+   * Load every relation of the plan onto the parents
+   */
+  void load(JdbcRepository<?, ?> repository, Connection conn, Dialect dialect,
+      Collection<? extends T> parents) throws SQLException {
+    if (parents.isEmpty()) {
+      return;
+    }
+    for (Relation relation : relations.values()) {
+      List<?> loaded = relation.toMany()
+          ? loadMany(repository, conn, dialect, relation, parents)
+          : loadOne(repository, conn, dialect, relation, parents);
+      if (relation.nested() != null && !loaded.isEmpty()) {
+        loadNested(repository, conn, dialect, relation.nested(), loaded);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <N> void loadNested(JdbcRepository<?, ?> repository, Connection conn,
+      Dialect dialect, FetchPlan<N> nested, List<?> loaded) throws SQLException {
+    nested.load(repository, conn, dialect, (List<N>) loaded);
+  }
+
+  private List<?> loadOne(JdbcRepository<?, ?> repository, Connection conn, Dialect dialect,
+      Relation relation, Collection<? extends T> parents) throws SQLException {
+    Set<Object> keys = keysOf(parents, relation.parentColumn());
+    List<?> targets = select(repository, conn, dialect, relation, keys);
+
+    KeyIndex<Object> byId = new KeyIndex<>(keyType(relation), targets.size());
+    for (Object target : targets) {
+      byId.put(valueOf(relation.target(), target, relation.targetColumn()), target);
+    }
+    for (T parent : parents) {
+      Object key = meta.getValue(parent, relation.parentColumn());
+      set(relation.field(), parent, key == null ? null : byId.get(key));
+    }
+    return targets;
+  }
+
+  private List<?> loadMany(JdbcRepository<?, ?> repository, Connection conn, Dialect dialect,
+      Relation relation, Collection<? extends T> parents) throws SQLException {
+    Set<Object> keys = keysOf(parents, relation.parentColumn());
+    List<?> children = select(repository, conn, dialect, relation, keys);
+
+    boolean set = Set.class.isAssignableFrom(relation.field().getType());
+    Supplier<Collection<Object>> factory = set ? LinkedHashSet::new : ArrayList::new;
+    KeyIndex<Collection<Object>> byParent = new KeyIndex<>(keyType(relation), keys.size());
+    for (Object child : children) {
+      Object key = valueOf(relation.target(), child, relation.targetColumn());
+      if (key != null) {
+        byParent.computeIfAbsent(key, factory).add(child);
+      }
+    }
+    for (T parent : parents) {
+      Object key = meta.getValue(parent, relation.parentColumn());
+      Collection<Object> group = key == null ? null : byParent.get(key);
+      set(relation.field(), parent, group != null ? group : factory.get());
+    }
+    return children;
+  }
+
+  private Set<Object> keysOf(Collection<? extends T> parents, String column) {
+    Set<Object> keys = new LinkedHashSet<>();
+    for (T parent : parents) {
+      Object key = meta.getValue(parent, column);
+      if (key != null) {
+        keys.add(key);
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Rows of the relation's target whose column is one of the keys, in as few statements as the
+   * dialect allows
+   */
+  private static List<?> select(JdbcRepository<?, ?> repository, Connection conn, Dialect dialect,
+      Relation relation, Set<Object> keys) throws SQLException {
+    if (keys.isEmpty()) {
+      return List.of();
+    }
+    EntityMeta<?> target = relation.target();
+    String select = target.statements().selectAll() + " WHERE " + relation.targetColumn();
+    String order = " ORDER BY " + target.idField();
+
+    // One array parameter keeps a single cached plan however many keys there are
+    String arrayType = dialect.arrayTypeName(target.getField(relation.targetColumn()).getType());
+    if (arrayType != null) {
+      try (PreparedStatement stmt = repository.prepare(conn, select + " = ANY(?)" + order)) {
+        stmt.setArray(1, conn.createArrayOf(arrayType, keys.toArray()));
+        try (ResultSet rs = stmt.executeQuery()) {
+          return repository.mapRows(stmt, rs, target.rowMapper(rs));
+        }
+      }
+    }
+
+    // Otherwise expand IN lists, split to stay under the dialect's bind parameter limit
+    List<Object> keyList = new ArrayList<>(keys);
+    List<Object> result = new ArrayList<>(keyList.size());
+    int chunkSize = dialect.maxBindParameters();
+    for (int from = 0; from < keyList.size(); from += chunkSize) {
+      List<Object> chunk = keyList.subList(from, Math.min(from + chunkSize, keyList.size()));
+      String sql = select + " IN (" + EntityStatements.placeholders(chunk.size()) + ")" + order;
+      try (PreparedStatement stmt = repository.prepare(conn, sql)) {
+        int paramIndex = 1;
+        for (Object key : chunk) {
+          stmt.setObject(paramIndex++, key);
+        }
+        try (ResultSet rs = stmt.executeQuery()) {
+          result.addAll(repository.mapRows(stmt, rs, target.rowMapper(rs)));
+        }
+      }
+    }
+    return result;
+  }
+
+  private Class<?> keyType(Relation relation) {
+    return meta.getField(relation.parentColumn()).getType();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E> Object valueOf(EntityMeta<E> meta, Object entity, String column) {
+    return meta.getValue((E) entity, column);
+  }
+
+  private static void set(Field field, Object entity, Object value) {
+    try {
+      field.set(entity, value);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Cannot set relation " + field.getName(), e);
+    }
+  }
+
+  private static String requireColumn(EntityMeta<?> meta, String column) {
+    if (meta.getField(column) == null) {
+      throw new IllegalArgumentException(
+          "No column '" + column + "' on " + meta.type().getSimpleName());
+    }
+    return column;
+  }
+
+  private static Class<?> elementType(Field field) {
+    if (Collection.class.isAssignableFrom(field.getType())
+        && field.getGenericType() instanceof ParameterizedType parameterized) {
+      Type element = parameterized.getActualTypeArguments()[0];
+      if (element instanceof Class<?> elementClass) {
+        return elementClass;
+      }
+    }
+    throw new IllegalArgumentException("@OneToMany field " + field.getName()
+        + " must be a List or Set of an entity class");
+  }
+
+  /**
+   * Map from relation keys to stitched values. Integral keys go into a {@link LongHashMap}, which
+   * also lets an {@code Integer} foreign key match a {@code Long} ID; other keys use equals().
+   */
+  private static final class KeyIndex<V> {
+
+    private final LongHashMap<V> longs;
+    private final Map<Object, V> objects;
+
+    KeyIndex(Class<?> keyType, int expectedSize) {
+      boolean integral = keyType == long.class || keyType == Long.class || keyType == int.class
+          || keyType == Integer.class || keyType == short.class || keyType == Short.class;
+      this.longs = integral ? new LongHashMap<>(expectedSize) : null;
+      this.objects = integral ? null : new HashMap<>();
+    }
+
+    V get(Object key) {
+      return longs != null ? longs.get(((Number) key).longValue()) : objects.get(key);
+    }
+
+    void put(Object key, V value) {
+      if (longs != null) {
+        longs.put(((Number) key).longValue(), value);
+      } else {
+        objects.put(key, value);
+      }
+    }
+
+    V computeIfAbsent(Object key, Supplier<? extends V> factory) {
+      V value = get(key);
+      if (value == null) {
+        value = factory.get();
+        put(key, value);
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,323 @@
+package com.crane.data;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Compiled access to one mapped entity field. Getter and setter are {@link MethodHandle}s resolved
+ * once per entity, and primitive and String columns are read and bound with typed JDBC calls
+ * ({@code getLong}, {@code setString}, ...) so the row path neither reflects nor boxes.
+ */
+abstract class FieldAccessor {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+  final String column;
+  final Field field;
+  final MethodHandle getter;
+  final MethodHandle setter;
+
+  private FieldAccessor(String column, Field field) {
+    this.column = column;
+    this.field = field;
+    try {
+      field.setAccessible(true);
+      this.getter = LOOKUP.unreflectGetter(field).asType(GETTER);
+      this.setter = LOOKUP.unreflectSetter(field).asType(SETTER);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Cannot access field " + field.getName(), e);
+    }
+  }
+
+  static FieldAccessor of(String column, Field field) {
+    Class<?> type = field.getType();
+    if (type == long.class || type == Long.class) {
+      return new LongAccessor(column, field);
+    }
+    if (type == int.class || type == Integer.class) {
+      return new IntAccessor(column, field);
+    }
+    if (type == double.class || type == Double.class) {
+      return new DoubleAccessor(column, field);
+    }
+    if (type == String.class) {
+      return new StringAccessor(column, field);
+    }
+    return new ObjectAccessor(column, field);
+  }
+
+  Class<?> type() {
+    return field.getType();
+  }
+
+  Object get(Object entity) {
+    try {
+      return (Object) getter.invokeExact(entity);
+    } catch (Throwable t) {
+      throw failure("read", t);
+    }
+  }
+
+  void set(Object entity, Object value) {
+    try {
+      setter.invokeExact(entity, value);
+    } catch (Throwable t) {
+      throw failure("write", t);
+    }
+  }
+
+  /**
+   * Read the column at {@code index} of the current row into the entity
+   */
+  abstract void read(ResultSet rs, int index, Object entity) throws SQLException;
+
+  /**
+   * Read the column through a resolved reader, or with this accessor's own typed read when
+   * {@code reader} is null. NULL leaves primitive fields at their current value.
+   */
+  void read(ResultSet rs, int index, Object entity, ColumnReader reader) throws SQLException {
+    if (reader == null) {
+      read(rs, index, entity);
+      return;
+    }
+    Object value = reader.read(rs, index);
+    if (value != null || !type().isPrimitive()) {
+      set(entity, value);
+    }
+  }
+
+  /**
+   * Reader for a column of the given JDBC type, or null when this accessor's typed read applies
+   */
+  ColumnReader readerFor(int jdbcType) {
+    if (readsTyped() && !ColumnConverters.hasConverter(jdbcType, type())) {
+      return null;
+    }
+    return ColumnConverters.reader(jdbcType, type());
+  }
+
+  /**
+   * Whether {@link #read(ResultSet, int, Object)} uses a typed getter rather than a conversion
+   */
+  boolean readsTyped() {
+    return true;
+  }
+
+  /**
+   * Bind the entity's value to parameter {@code index}
+   */
+  abstract void bind(PreparedStatement stmt, int index, Object entity) throws SQLException;
+
+  RuntimeException failure(String action, Throwable t) {
+    if (t instanceof RuntimeException runtimeException) {
+      return runtimeException;
+    }
+    if (t instanceof Error error) {
+      throw error;
+    }
+    return new RuntimeException("Failed to " + action + " field " + field.getName(), t);
+  }
+
+  void bindNullable(PreparedStatement stmt, int index, Object value) throws SQLException {
+    if (value != null) {
+      stmt.setObject(index, value);
+    } else {
+      stmt.setNull(index, SqlUtil.getSqlType(type()));
+    }
+  }
+
+  private static final class LongAccessor extends FieldAccessor {
+    private final boolean primitive;
+    private final MethodHandle primitiveGetter;
+    private final MethodHandle primitiveSetter;
+
+    LongAccessor(String column, Field field) {
+      super(column, field);
+      this.primitive = field.getType() == long.class;
+      this.primitiveGetter = primitive ? getter.asType(MethodType.methodType(long.class, Object.class)) : null;
+      this.primitiveSetter = primitive ? setter.asType(MethodType.methodType(void.class, Object.class, long.class)) : null;
+    }
+
+    @Override
+    void read(ResultSet rs, int index, Object entity) throws SQLException {
+      long value = rs.getLong(index);
+      boolean isNull = rs.wasNull();
+      try {
+        if (primitive) {
+          if (!isNull) {
+            primitiveSetter.invokeExact(entity, value);
+          }
+        } else {
+          setter.invokeExact(entity, isNull ? null : (Object) value);
+        }
+      } catch (Throwable t) {
+        throw failure("write", t);
+      }
+    }
+
+    @Override
+    void bind(PreparedStatement stmt, int index, Object entity) throws SQLException {
+      if (primitive) {
+        long value;
+        try {
+          value = (long) primitiveGetter.invokeExact(entity);
+        } catch (Throwable t) {
+          throw failure("read", t);
+        }
+        stmt.setLong(index, value);
+      } else {
+        bindNullable(stmt, index, get(entity));
+      }
+    }
+  }
+
+  private static final class IntAccessor extends FieldAccessor {
+    private final boolean primitive;
+    private final MethodHandle primitiveGetter;
+    private final MethodHandle primitiveSetter;
+
+    IntAccessor(String column, Field field) {
+      super(column, field);
+      this.primitive = field.getType() == int.class;
+      this.primitiveGetter = primitive ? getter.asType(MethodType.methodType(int.class, Object.class)) : null;
+      this.primitiveSetter = primitive ? setter.asType(MethodType.methodType(void.class, Object.class, int.class)) : null;
+    }
+
+    @Override
+    void read(ResultSet rs, int index, Object entity) throws SQLException {
+      int value = rs.getInt(index);
+      boolean isNull = rs.wasNull();
+      try {
+        if (primitive) {
+          if (!isNull) {
+            primitiveSetter.invokeExact(entity, value);
+          }
+        } else {
+          setter.invokeExact(entity, isNull ? null : (Object) value);
+        }
+      } catch (Throwable t) {
+        throw failure("write", t);
+      }
+    }
+
+    @Override
+    void bind(PreparedStatement stmt, int index, Object entity) throws SQLException {
+      if (primitive) {
+        int value;
+        try {
+          value = (int) primitiveGetter.invokeExact(entity);
+        } catch (Throwable t) {
+          throw failure("read", t);
+        }
+        stmt.setInt(index, value);
+      } else {
+        bindNullable(stmt, index, get(entity));
+      }
+    }
+  }
+
+  private static final class DoubleAccessor extends FieldAccessor {
+    private final boolean primitive;
+    private final MethodHandle primitiveGetter;
+    private final MethodHandle primitiveSetter;
+
+    DoubleAccessor(String column, Field field) {
+      super(column, field);
+      this.primitive = field.getType() == double.class;
+      this.primitiveGetter = primitive ? getter.asType(MethodType.methodType(double.class, Object.class)) : null;
+      this.primitiveSetter = primitive ? setter.asType(MethodType.methodType(void.class, Object.class, double.class)) : null;
+    }
+
+    @Override
+    void read(ResultSet rs, int index, Object entity) throws SQLException {
+      double value = rs.getDouble(index);
+      boolean isNull = rs.wasNull();
+      try {
+        if (primitive) {
+          if (!isNull) {
+            primitiveSetter.invokeExact(entity, value);
+          }
+        } else {
+          setter.invokeExact(entity, isNull ? null : (Object) value);
+        }
+      } catch (Throwable t) {
+        throw failure("write", t);
+      }
+    }
+
+    @Override
+    void bind(PreparedStatement stmt, int index, Object entity) throws SQLException {
+      if (primitive) {
+        double value;
+        try {
+          value = (double) primitiveGetter.invokeExact(entity);
+        } catch (Throwable t) {
+          throw failure("read", t);
+        }
+        stmt.setDouble(index, value);
+      } else {
+        bindNullable(stmt, index, get(entity));
+      }
+    }
+  }
+
+  private static final class StringAccessor extends FieldAccessor {
+
+    StringAccessor(String column, Field field) {
+      super(column, field);
+    }
+
+    @Override
+    void read(ResultSet rs, int index, Object entity) throws SQLException {
+      set(entity, rs.getString(index));
+    }
+
+    @Override
+    void bind(PreparedStatement stmt, int index, Object entity) throws SQLException {
+      String value = (String) get(entity);
+      if (value != null) {
+        stmt.setString(index, value);
+      } else {
+        stmt.setNull(index, java.sql.Types.VARCHAR);
+      }
+    }
+  }
+
+  /**
+   * Fallback for every other type: {@code getObject} plus {@link SqlUtil#convertType}
+   */
+  private static final class ObjectAccessor extends FieldAccessor {
+
+    ObjectAccessor(String column, Field field) {
+      super(column, field);
+    }
+
+    @Override
+    boolean readsTyped() {
+      return false;
+    }
+
+    @Override
+    void read(ResultSet rs, int index, Object entity) throws SQLException {
+      Object value = rs.getObject(index);
+      if (value != null) {
+        value = SqlUtil.convertType(value, type());
+      } else if (type().isPrimitive()) {
+        return; // keep the primitive default
+      }
+      set(entity, value);
+    }
+
+    @Override
+    void bind(PreparedStatement stmt, int index, Object entity) throws SQLException {
+      bindNullable(stmt, index, get(entity));
+    }
+  }
+}
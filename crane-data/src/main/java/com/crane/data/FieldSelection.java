@@ -0,0 +1,114 @@
+package com.crane.data;
+
+import com.crane.core.Context;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entity columns a client asked for with a {@code fields} query parameter
+ * ({@code GET /orders?fields=id,status,total}). The same selection narrows the SQL select list and
+ * the JSON response, so unrequested columns are neither read, mapped nor serialized.
+ *
+ * <pre>
+ * FieldSelection fields = FieldSelection.from(ctx, orderRepository);
+ * fields.respond(ctx, orderRepository.findAll(pageRequest, fields));
+ * </pre>
+ *
+ * Entities loaded with a selection only have the selected fields set.
+ */
+public final class FieldSelection {
+
+  public static final String PARAM = "fields";
+
+  private final Class<?> entityType;
+  private final List<String> columns;
+  private final Set<String> properties;
+
+  private FieldSelection(Class<?> entityType, List<String> columns, Set<String> properties) {
+    this.entityType = entityType;
+    this.columns = columns;
+    this.properties = properties;
+  }
+
+  /**
+   * Parse the request's {@code fields} parameter for the repository's entity
+   *
+   * @throws IllegalArgumentException if a requested field is not a column of the entity
+   */
+  public static FieldSelection from(Context ctx, JdbcRepository<?, ?> repository) {
+    return repository.selectFields(ctx.queryParam(PARAM));
+  }
+
+  /**
+   * @param spec Comma-separated field or column names; null or blank selects every column
+   */
+  static FieldSelection parse(EntityMeta<?> meta, String spec) {
+    if (spec == null || spec.isBlank()) {
+      return new FieldSelection(meta.type(), null, null);
+    }
+    Set<String> requested = new LinkedHashSet<>();
+    for (String name : spec.split(",")) {
+      String trimmed = name.trim();
+      if (!trimmed.isEmpty()) {
+        requested.add(trimmed);
+      }
+    }
+
+    // Keep the entity's column order, whatever order the client used
+    List<String> columns = new ArrayList<>();
+    Set<String> properties = new LinkedHashSet<>();
+    for (String column : meta.columns()) {
+      String property = meta.getField(column).getName();
+      if (requested.remove(column) | requested.remove(property)) {
+        columns.add(column);
+        properties.add(property);
+      }
+    }
+    if (!requested.isEmpty()) {
+      throw new IllegalArgumentException("Unknown field(s) " + requested + " for "
+          + meta.type().getSimpleName() + ", expected some of " + meta.columns());
+    }
+    return new FieldSelection(meta.type(), Collections.unmodifiableList(columns),
+        Collections.unmodifiableSet(properties));
+  }
+
+  /**
+   * Whether no selection was made and every column is wanted
+   */
+  public boolean isAll() {
+    return columns == null;
+  }
+
+  /**
+   * Selected columns in entity order, or null when all are selected
+   */
+  public List<String> columns() {
+    return columns;
+  }
+
+  /**
+   * Entity property names of the selected columns, or null when all are selected
+   */
+  public Set<String> properties() {
+    return properties;
+  }
+
+  /**
+   * Write the result as JSON with only the selected properties of its entities
+   */
+  public void respond(Context ctx, Object result) throws IOException {
+    ctx.jsonResponse(result, entityType, properties);
+  }
+
+  String selectList(EntityMeta<?> meta) {
+    if (meta.type() != entityType) {
+      throw new IllegalArgumentException("Field selection for " + entityType.getSimpleName()
+          + " used with " + meta.type().getSimpleName());
+    }
+    return isAll() ? "*" : String.join(", ", columns);
+  }
+}
@@ -0,0 +1,115 @@
+package com.crane.data;
+
+import com.crane.core.ConnectionHolder;
+import com.crane.core.transaction.TransactionSynchronization;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * First-level cache of one transaction. Entities loaded or saved by repositories with
+ * {@link JdbcRepository#setIdentityMap(boolean)} on are registered under their ID, so repeated
+ * lookups in the same transaction return the same instance without a query. The map is bound to the
+ * transaction through {@link ConnectionHolder#bindResource(Object, Object)}, so REQUIRES_NEW
+ * transactions get their own, and it is cleared when the transaction completes. It is also cleared
+ * when a NESTED transaction rolls back to its savepoint: instances registered or changed inside the
+ * nested block no longer match their rows, and loading again is cheaper than tracking which did.
+ */
+final class IdentityMap implements TransactionSynchronization {
+
+  private static final Object KEY = IdentityMap.class;
+
+  private final Map<Class<?>, Map<Object, Object>> entities = new HashMap<>();
+
+  private IdentityMap() {
+  }
+
+  /**
+   * The map of the current transaction, or null if there is none or it has no map yet
+   */
+  static IdentityMap current() {
+    if (!ConnectionHolder.isTransactional()) {
+      return null;
+    }
+    return (IdentityMap) ConnectionHolder.getResource(KEY);
+  }
+
+  /**
+   * The map of the current transaction, created on first use, or null outside a transaction
+   */
+  static IdentityMap bind() {
+    if (!ConnectionHolder.isTransactional()) {
+      return null;
+    }
+    IdentityMap map = (IdentityMap) ConnectionHolder.getResource(KEY);
+    if (map == null) {
+      map = new IdentityMap();
+      ConnectionHolder.bindResource(KEY, map);
+      ConnectionHolder.registerSynchronization(map);
+    }
+    return map;
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> T get(EntityMeta<T> meta, Object id) {
+    Map<Object, Object> byId = entities.get(meta.type());
+    return byId == null || id == null ? null : (T) byId.get(key(meta, id));
+  }
+
+  /**
+   * Register an entity read from the database unless an instance with its ID is already known
+   *
+   * @return the known instance, or null if the entity was registered
+   */
+  @SuppressWarnings("unchecked")
+  <T> T putIfAbsent(EntityMeta<T> meta, T entity) {
+    Object id = meta.getValue(entity, meta.idField());
+    if (id == null) {
+      return null;
+    }
+    return (T) entities.computeIfAbsent(meta.type(), type -> new HashMap<>())
+        .putIfAbsent(key(meta, id), entity);
+  }
+
+  /**
+   * Make a saved entity the known instance for its ID
+   */
+  <T> void put(EntityMeta<T> meta, T entity) {
+    Object id = meta.getValue(entity, meta.idField());
+    if (id != null) {
+      entities.computeIfAbsent(meta.type(), type -> new HashMap<>()).put(key(meta, id), entity);
+    }
+  }
+
+  void remove(EntityMeta<?> meta, Object id) {
+    Map<Object, Object> byId = entities.get(meta.type());
+    if (byId != null && id != null) {
+      byId.remove(key(meta, id));
+    }
+  }
+
+  /**
+   * Forget every instance of the entity, e.g. after a bulk write touched unknown rows
+   */
+  void removeAll(EntityMeta<?> meta) {
+    entities.remove(meta.type());
+  }
+
+  @Override
+  public void afterCommit() {
+    entities.clear();
+  }
+
+  @Override
+  public void afterRollback() {
+    entities.clear();
+  }
+
+  @Override
+  public void afterRollbackToSavepoint() {
+    entities.clear();
+  }
+
+  private static Object key(EntityMeta<?> meta, Object id) {
+    return SqlUtil.idKey(id, meta.getField(meta.idField()).getType());
+  }
+}
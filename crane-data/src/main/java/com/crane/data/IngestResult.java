@@ -0,0 +1,49 @@
+package com.crane.data;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link BulkIngest} run
+ */
+public class IngestResult {
+
+  /**
+   * A record that could not be parsed, mapped or written
+   *
+   * @param row     1-based record number in the upload (excluding a CSV header)
+   * @param line    line of the upload the record started on
+   * @param message what went wrong
+   */
+  public record RowError(long row, long line, String message) {
+  }
+
+  private final long rowsRead;
+  private final long rowsWritten;
+  private final long rowsFailed;
+  private final List<RowError> errors;
+  private final long elapsedNanos;
+  private final boolean aborted;
+
+  IngestResult(long rowsRead, long rowsWritten, long rowsFailed, List<RowError> errors,
+      long elapsedNanos, boolean aborted) {
+    this.rowsRead = rowsRead;
+    this.rowsWritten = rowsWritten;
+    this.rowsFailed = rowsFailed;
+    this.errors = List.copyOf(errors);
+    this.elapsedNanos = elapsedNanos;
+    this.aborted = aborted;
+  }
+
+  public long getRowsRead() { return rowsRead; }
+  public long getRowsWritten() { return rowsWritten; }
+  public long getRowsFailed() { return rowsFailed; }
+  /** @return the recorded row errors, at most the ingest's error limit */
+  public List<RowError> getErrors() { return errors; }
+  public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+  /** @return true if the ingest stopped early because the error limit was reached */
+  public boolean isAborted() { return aborted; }
+
+  public double getRowsPerSecond() {
+    return elapsedNanos == 0 ? 0 : rowsWritten * 1_000_000_000.0 / elapsedNanos;
+  }
+}
@@ -1,119 +1,304 @@
 package com.crane.data;
 
 import com.crane.core.ConnectionHolder;
+import com.crane.core.Deadline;
+import com.crane.core.jdbc.QueryMetrics;
 import com.crane.data.annotation.AutoGenerated;
+import com.crane.data.dialect.Dialect;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public abstract class JdbcRepository<T, ID> {
 
+  /**
+   * Rows fetched per round trip by the stream methods unless a fetch size is given
+   */
+  public static final int DEFAULT_FETCH_SIZE = 500;
+
   protected final EntityMeta<T> meta;
+  protected final EntityStatements statements;
+  private volatile Dialect dialect;
+  private volatile Duration countCacheTtl = Duration.ofSeconds(30);
+  private volatile CachedCount cachedCount;
+  private volatile int batchSize = BatchWriter.DEFAULT_CHUNK_SIZE;
+  private volatile boolean multiRowInsert;
+  private final EntityCache<T> cache;
+  private volatile DirtyTracker<T> tracker;
+  private volatile boolean identityMap;
+  private volatile boolean deferredWrites;
+
+  private record CachedCount(long value, long expiresAt) {
+  }
 
   public JdbcRepository(Class<T> entityClass) {
     this.meta = EntityParser.parse(entityClass);
+    this.statements = meta.statements();
+    this.cache = EntityCache.forEntity(meta);
+    QueryResultCache.shared().register(meta.table());
+  }
+
+  /**
+   * Repository whose entities are kept in the second-level cache, as if they were annotated with
+   * {@link com.crane.data.annotation.Cacheable}. The cache is shared per entity class, so the first
+   * repository to create it decides its settings.
+   */
+  public JdbcRepository(Class<T> entityClass, int cacheSize, Duration cacheTtl) {
+    this.meta = EntityParser.parse(entityClass);
+    this.statements = meta.statements();
+    this.cache = EntityCache.forEntity(meta, cacheSize, cacheTtl);
+    QueryResultCache.shared().register(meta.table());
   }
 
   protected Connection getConnection() {
     return ConnectionHolder.get();
   }
 
+  /**
+   * SQL dialect of the database behind this repository, detected from the first connection used
+   */
+  protected Dialect dialect() throws SQLException {
+    Dialect current = dialect;
+    if (current == null) {
+      current = Dialect.detect(getConnection());
+      dialect = current;
+    }
+    return current;
+  }
+
   public Optional<T> findById(ID id) throws SQLException {
-    String sql = "SELECT * FROM " + meta.table() + " WHERE " + meta.idField() + " = ?";
+    IdentityMap identities = identities();
+    T known = identities == null ? null : identities.get(meta, id);
+    if (known != null) {
+      return Optional.of(known);
+    }
+    EntityCache<T> cache = cache();
+    if (cache == null) {
+      return loadById(id);
+    }
+    T cached = cache.get(id);
+    if (cached != null) {
+      return Optional.of(canonical(identities, cached));
+    }
+    long stamp = cache.stamp();
+    Optional<T> loaded = loadById(id);
+    loaded.ifPresent(entity -> cache.put(entity, stamp));
+    return loaded;
+  }
+
+  private Optional<T> loadById(ID id) throws SQLException {
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, statements.selectById())) {
       stmt.setObject(1, id);
-      ResultSet rs = stmt.executeQuery();
-      if (rs.next()) {
-        return Optional.of(mapRow(rs));
+      try (ResultSet rs = stmt.executeQuery()) {
+        return mapFirst(stmt, rs, rowMapper(rs));
       }
     }
-    return Optional.empty();
   }
 
   public List<T> findAll() throws SQLException {
-    String sql = "SELECT * FROM " + meta.table();
-    List<T> result = new ArrayList<>();
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql);
+        PreparedStatement stmt = prepare(conn, statements.selectAll());
         ResultSet rs = stmt.executeQuery()) {
-      while (rs.next()) {
-        result.add(mapRow(rs));
-      }
+      return mapRows(stmt, rs, rowMapper(rs));
     }
-    return result;
   }
 
-  public T save(T entity) throws SQLException {
-    if (isNew(entity)) {
-      return insert(entity);
-    } else {
-      return update(entity);
+  /**
+   * Every row, reading only the projected columns
+   */
+  public <P> List<P> findAll(Projection<P> projection) throws SQLException {
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, select(projection));
+        ResultSet rs = stmt.executeQuery()) {
+      return mapRows(stmt, rs, projection.rowMapper(rs));
     }
   }
 
-  // Update the isNew method to handle different auto-generation strategies
-  private boolean isNew(T entity) throws SQLException {
-    try {
-      Field idField = meta.getField(meta.idField());
-      idField.setAccessible(true);
-      Object idValue = idField.get(entity);
+  /**
+   * Every row, with only the selected columns read
+   */
+  public List<T> findAll(FieldSelection fields) throws SQLException {
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, select(fields));
+        ResultSet rs = stmt.executeQuery()) {
+      return mapRows(stmt, rs, rowMapper(rs));
+    }
+  }
 
-      // If ID is auto-generated and null, it's definitely new
-      if (meta.isIdAutoGenerated() && idValue == null) {
-        return true;
-      }
+  /**
+   * Lazily stream every row of the table. The stream keeps a cursor and its connection open until
+   * it is closed, so use it in a try-with-resources block.
+   */
+  public Stream<T> streamAll() throws SQLException {
+    return streamAll(DEFAULT_FETCH_SIZE);
+  }
 
-      // If ID is not auto-generated and null, throw exception
-      if (!meta.isIdAutoGenerated() && idValue == null) {
-        throw new IllegalArgumentException("Non-auto-generated ID cannot be null");
-      }
+  public Stream<T> streamAll(int fetchSize) throws SQLException {
+    return openStream(statements.selectAll(), List.of(), fetchSize, this::rowMapper);
+  }
+
+  /**
+   * Lazily stream the projected columns of every row, see {@link #streamAll()}
+   */
+  public <P> Stream<P> streamAll(Projection<P> projection) throws SQLException {
+    return streamAll(projection, DEFAULT_FETCH_SIZE);
+  }
+
+  public <P> Stream<P> streamAll(Projection<P> projection, int fetchSize) throws SQLException {
+    return openStream(select(projection), List.of(), fetchSize, projection::rowMapper);
+  }
+
+  /**
+   * Lazily stream the rows matching a field value, see {@link #streamAll()}
+   */
+  public Stream<T> streamByField(String fieldName, Object value) throws SQLException {
+    return streamByField(fieldName, value, DEFAULT_FETCH_SIZE);
+  }
+
+  public Stream<T> streamByField(String fieldName, Object value, int fetchSize)
+      throws SQLException {
+    validateFieldName(fieldName);
+    String sql = "SELECT * FROM " + meta.table() + " WHERE " + fieldName + " = ?";
+    return openStream(sql, Collections.singletonList(value), fetchSize, this::rowMapper);
+  }
+
+  public <P> Stream<P> streamByField(String fieldName, Object value, Projection<P> projection)
+      throws SQLException {
+    return streamByField(fieldName, value, projection, DEFAULT_FETCH_SIZE);
+  }
+
+  public <P> Stream<P> streamByField(String fieldName, Object value, Projection<P> projection,
+      int fetchSize) throws SQLException {
+    validateFieldName(fieldName);
+    String sql = select(projection) + " WHERE " + fieldName + " = ?";
+    return openStream(sql, Collections.singletonList(value), fetchSize, projection::rowMapper);
+  }
+
+  /**
+   * SELECT of the projected columns, without a WHERE clause
+   */
+  private String select(Projection<?> projection) {
+    return "SELECT " + projection.selectList(meta) + " FROM " + meta.table();
+  }
+
+  private String select(FieldSelection fields) {
+    return "SELECT " + fields.selectList(meta) + " FROM " + meta.table();
+  }
 
-      // If ID has a value, check if it exists in database
-      if (idValue != null) {
-        return !existsById(idValue);
+  /**
+   * Validate a comma-separated list of field or column names, typically the {@code fields} query
+   * parameter, against this entity
+   *
+   * @param fields Requested names; null or blank selects every column
+   * @throws IllegalArgumentException if a name is not a column of the entity
+   */
+  public FieldSelection selectFields(String fields) {
+    return FieldSelection.parse(meta, fields);
+  }
+
+  public T save(T entity) throws SQLException {
+    UnitOfWork unitOfWork = unitOfWork();
+    if (unitOfWork != null) {
+      unitOfWork.save(this, entity);
+      IdentityMap identities = identities();
+      if (identities != null) {
+        identities.put(meta, entity);
       }
+      evictQueued(Collections.singletonList(meta.getValue(entity, meta.idField())));
+      return entity;
+    }
+    return saveNow(entity);
+  }
 
-      return true;
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException("Failed to access ID field", e);
+  private T saveNow(T entity) throws SQLException {
+    DirtyTracker<T> current = tracker;
+    BitSet changed = current == null ? null : current.changes(entity);
+    if (changed != null && changed.isEmpty()) {
+      return entity; // Unchanged since it was loaded or saved
     }
+    T saved = doSave(entity, changed);
+    afterWrite(saved);
+    return saved;
   }
 
-  private T mapRow(ResultSet rs) throws SQLException {
-    try {
-      T instance = meta.type().getDeclaredConstructor().newInstance();
-      for (String column : meta.columns()) {
-        Field field = meta.getField(column);
-        field.setAccessible(true);
-
-        Object value = rs.getObject(column);
-        if (value != null) {
-          // Add type conversion logic here
-          value = SqlUtil.convertType(value, field.getType());
-        }
-        field.set(instance, value);
+  /**
+   * @param changed Columns changed since the entity was loaded, or null if it is not tracked
+   */
+  private T doSave(T entity, BitSet changed) throws SQLException {
+    Object idValue = meta.getValue(entity, meta.idField());
+    if (idValue == null) {
+      return insert(requireAutoGeneratedId(entity));
+    }
+
+    // Tracked entities only write their changed columns; a row that is gone takes the full path
+    if (changed != null) {
+      if (executePartialUpdate(entity, changed) > 0) {
+        return entity;
       }
-      return instance;
-    } catch (Exception e) {
-      throw new RuntimeException("Failed to map row to entity", e);
+      if (meta.isDatabaseGenerated(meta.idField())) {
+        return insert(entity);
+      }
+    }
+
+    // IDs handed out by the database almost always belong to an existing row: try the UPDATE
+    // first and only INSERT (with a fresh ID) when nothing matched
+    if (meta.isDatabaseGenerated(meta.idField())) {
+      return executeUpdate(entity) > 0 ? entity : insert(entity);
+    }
+
+    // Application-assigned IDs: one native upsert instead of existsById + INSERT/UPDATE
+    String upsert = statements.upsert(dialect());
+    if (upsert != null) {
+      return upsert(entity, upsert);
+    }
+    return existsById(idValue) ? update(entity) : insert(entity);
+  }
+
+  private T requireAutoGeneratedId(T entity) {
+    // If ID is not auto-generated and null, throw exception
+    if (!meta.isIdAutoGenerated()) {
+      throw new IllegalArgumentException("Non-auto-generated ID cannot be null");
     }
+    return entity;
+  }
+
+  // Update the isNew method to handle different auto-generation strategies
+  private boolean isNew(T entity) throws SQLException {
+    Object idValue = meta.getValue(entity, meta.idField());
+
+    // If ID is auto-generated and null, it's definitely new
+    if (meta.isIdAutoGenerated() && idValue == null) {
+      return true;
+    }
+
+    // If ID is not auto-generated and null, throw exception
+    if (!meta.isIdAutoGenerated() && idValue == null) {
+      throw new IllegalArgumentException("Non-auto-generated ID cannot be null");
+    }
+
+    // If ID has a value, check if it exists in database
+    return !existsById(idValue);
   }
 
   public boolean existsById(Object id) throws SQLException {
-    String sql = "SELECT 1 FROM " + meta.table() + " WHERE " + meta.idField() + " = ?";
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, statements.existsById())) {
       stmt.setObject(1, id);
       try (ResultSet rs = stmt.executeQuery()) {
         return rs.next();
@@ -123,31 +308,28 @@ public abstract class JdbcRepository<T, ID> {
 
   // Updated insert method
   private T insert(T entity) throws SQLException {
-    // STEP 1: Generate application-side values BEFORE building INSERT
+    // STEP 1: Generate application-side values BEFORE binding the INSERT
     generateApplicationValues(entity);
 
-    // STEP 2: Filter out only DATABASE-generated fields from insert
-    List<String> columns = meta.columns().stream()
-        .filter(col -> !meta.isDatabaseGenerated(col)) // Only exclude DB-generated
-        .collect(Collectors.toList());
-
-    if (columns.isEmpty()) {
+    String sql = statements.insert();
+    if (sql == null) {
       throw new SQLException("No insertable columns found. All fields are database-generated.");
     }
 
-    String columnNames = String.join(", ", columns);
-    String placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", "));
-    String sql =
-        "INSERT INTO " + meta.table() + " (" + columnNames + ") VALUES (" + placeholders + ")";
+    // STEP 2: Let the INSERT return DB-generated fields directly where the dialect allows it
+    String returning = statements.insertReturning(dialect());
+    if (returning != null) {
+      return insertReturning(entity, returning);
+    }
 
-    // STEP 3: Determine if we need generated keys (only for DB-generated fields)
-    boolean needsGeneratedKeys = !meta.getDatabaseGeneratedFields().isEmpty();
+    // STEP 3: Otherwise generated keys are only requested for DB-generated fields
+    boolean needsGeneratedKeys = statements.needsGeneratedKeys();
 
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql,
+        PreparedStatement stmt = prepare(conn, sql,
             needsGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS)) {
 
-      setParameters(stmt, entity, columns);
+      statements.bindInsert(stmt, entity);
 
       int affectedRows = stmt.executeUpdate();
       if (affectedRows == 0) {
@@ -160,37 +342,42 @@ public abstract class JdbcRepository<T, ID> {
       }
 
       return entity;
+    }
+  }
+
+  private T insertReturning(T entity, String sql) throws SQLException {
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, sql)) {
 
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException("Failed to access field during insert", e);
+      statements.bindInsert(stmt, entity);
+
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (!rs.next()) {
+          throw new SQLException("Insert failed, no rows affected.");
+        }
+        readGeneratedKeys(rs, entity);
+      }
+      return entity;
     }
   }
 
   // NEW METHOD: Generate application-side values before insert
-  private void generateApplicationValues(T entity) throws SQLException {
-    try {
-      for (String fieldName : meta.getApplicationGeneratedFields()) {
-        Field field = meta.getField(fieldName);
-        field.setAccessible(true);
-
-        // Only generate if field is currently null
-        if (field.get(entity) == null) {
-          AutoGenerated annotation = field.getAnnotation(AutoGenerated.class);
-          Object generatedValue = generateApplicationValue(field, annotation);
-          if (generatedValue != null) {
-            field.set(entity, generatedValue);
-          }
+  void generateApplicationValues(T entity) throws SQLException {
+    for (String fieldName : meta.getApplicationGeneratedFields()) {
+      // Only generate if field is currently null
+      if (meta.getValue(entity, fieldName) == null) {
+        Object generatedValue = generateApplicationValue(fieldName, meta.getField(fieldName),
+            meta.generationStrategy(fieldName));
+        if (generatedValue != null) {
+          meta.setValue(entity, fieldName, generatedValue);
         }
       }
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException("Failed to generate application values", e);
     }
   }
 
   // NEW METHOD: Generate application values (like UUID)
-  private Object generateApplicationValue(Field field, AutoGenerated annotation) {
-    AutoGenerated.Strategy strategy = annotation.strategy();
-
+  private Object generateApplicationValue(String column, Field field,
+      AutoGenerated.Strategy strategy) throws SQLException {
     switch (strategy) {
       case UUID:
         if (field.getType() == UUID.class) {
@@ -200,6 +387,26 @@ public abstract class JdbcRepository<T, ID> {
         }
         throw new RuntimeException("UUID strategy can only be used with UUID or String fields");
 
+      case UUID_V7:
+        UUID uuid = Uuids.v7();
+        if (field.getType() == UUID.class) {
+          return uuid;
+        } else if (field.getType() == String.class) {
+          return uuid.toString();
+        } else if (field.getType() == byte[].class) {
+          return Uuids.toBytes(uuid);
+        }
+        throw new RuntimeException(
+            "UUID_V7 strategy can only be used with UUID, String or byte[] fields");
+
+      case SEQUENCE_BLOCK:
+        Class<?> type = field.getType();
+        if (type == Long.class || type == Integer.class) {
+          return SqlUtil.convertType(meta.allocator(column).next(this), type);
+        }
+        throw new RuntimeException(
+            "SEQUENCE_BLOCK strategy can only be used with Long or Integer fields");
+
         // Add other application-generated strategies here
 
       default:
@@ -208,110 +415,211 @@ public abstract class JdbcRepository<T, ID> {
   }
 
   private void handleDatabaseGeneratedKeys(PreparedStatement stmt, T entity)
-      throws SQLException, IllegalAccessException {
+      throws SQLException {
     try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
       if (generatedKeys.next()) {
-        // Handle only database-generated fields
-        for (String autoGenField : meta.getDatabaseGeneratedFields()) {
-          Field field = meta.getField(autoGenField);
-          field.setAccessible(true);
-
-          AutoGenerated autoGenAnnotation = field.getAnnotation(AutoGenerated.class);
-          if (autoGenAnnotation != null) {
-            Object generatedValue = generateDatabaseValue(generatedKeys, field, autoGenAnnotation);
-            if (generatedValue != null) {
-              field.set(entity, generatedValue);
-            }
-          }
-        }
+        readGeneratedKeys(generatedKeys, entity);
       }
     }
   }
 
-  // UPDATED METHOD: Generate only database values
-  private Object generateDatabaseValue(ResultSet generatedKeys, Field field,
-      AutoGenerated autoGenAnnotation) throws SQLException {
-
-    AutoGenerated.Strategy strategy = autoGenAnnotation.strategy();
-
-    switch (strategy) {
-      case DATABASE:
-        Object dbValue;
-        try {
-          dbValue = generatedKeys.getObject(field.getName());
-        } catch (SQLException e) {
-          // Fallback to index if column name doesn't work
-          dbValue = generatedKeys.getObject(1);
-        }
-        return SqlUtil.convertType(dbValue, field.getType());
-
-      default:
-        throw new RuntimeException("Unsupported database generation strategy: " + strategy);
+  void readGeneratedKeys(ResultSet generatedKeys, T entity) throws SQLException {
+    // Handle only database-generated fields, in catalog order
+    FieldAccessor[] keys = statements.generatedKeyAccessors();
+    for (int i = 0; i < keys.length; i++) {
+      Object dbValue;
+      try {
+        dbValue = generatedKeys.getObject(keys[i].column);
+      } catch (SQLException e) {
+        // Fallback to position if the column label doesn't work
+        dbValue = generatedKeys.getObject(i + 1);
+      }
+      if (dbValue != null) {
+        keys[i].set(entity, SqlUtil.convertType(dbValue, keys[i].type()));
+      }
     }
   }
 
   private T update(T entity) throws SQLException {
-    List<String> updateColumns = meta.columns().stream()
-        .filter(col -> !col.equals(meta.idField()))
-        .collect(Collectors.toList());
-
-    if (updateColumns.isEmpty()) {
+    if (statements.update() == null) {
       return entity; // Nothing to update, return original entity
     }
 
-    String setClause = updateColumns.stream()
-        .map(col -> col + " = ?")
-        .collect(Collectors.joining(", "));
+    int affectedRows = executeUpdate(entity);
+    if (affectedRows == 0) {
+      throw new SQLException("Update failed, no rows affected. Entity may not exist.");
+    }
+
+    // For update, we can either return the modified entity as-is,
+    // or fetch it fresh from the database to get any database-level changes
+    // (like triggers, computed columns, etc.)
 
-    String sql =
-        "UPDATE " + meta.table() + " SET " + setClause + " WHERE " + meta.idField() + " = ?";
+    // Option 1: Return the entity as-is (faster)
+    return entity;
+
+    // Option 2: Fetch fresh from database (uncomment if you need DB-level changes)
+    // return findById(idValue);
+  }
 
+  private int executePartialUpdate(T entity, BitSet changed) throws SQLException {
+    EntityStatements.PartialUpdate update = statements.partialUpdate(changed);
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, update.sql())) {
+      EntityStatements.bind(stmt, entity, update.binders(), 1);
+      return stmt.executeUpdate();
+    }
+  }
 
-      // Set update parameters
-      setParameters(stmt, entity, updateColumns);
+  /**
+   * @return the number of rows the UPDATE matched; entities without updatable columns report the
+   *     row as matched
+   */
+  private int executeUpdate(T entity) throws SQLException {
+    String sql = statements.update();
+    if (sql == null) {
+      return 1;
+    }
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, sql)) {
+      // Set update parameters followed by the WHERE clause ID
+      statements.bindUpdate(stmt, entity);
+      return stmt.executeUpdate();
+    }
+  }
 
-      // Set WHERE clause parameter (ID)
-      Field idField = meta.getField(meta.idField());
-      idField.setAccessible(true);
-      Object idValue = idField.get(entity);
-      stmt.setObject(updateColumns.size() + 1, idValue);
+  private T upsert(T entity, String sql) throws SQLException {
+    generateApplicationValues(entity);
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, sql)) {
+      statements.bindUpsert(stmt, entity);
+      stmt.executeUpdate();
+      return entity;
+    }
+  }
 
-      int affectedRows = stmt.executeUpdate();
-      if (affectedRows == 0) {
-        throw new SQLException("Update failed, no rows affected. Entity may not exist.");
-      }
+  /**
+   * Builds the row mapper once the result set (and its metadata) exists
+   */
+  private interface MapperFactory<R> {
+    RowMapper<R> create(ResultSet rs) throws SQLException;
+  }
 
-      // For update, we can either return the modified entity as-is,
-      // or fetch it fresh from the database to get any database-level changes
-      // (like triggers, computed columns, etc.)
+  /**
+   * Open a forward-only, read-only cursor and hand it to a lazy stream that owns the statement and
+   * connection from then on
+   */
+  private <R> Stream<R> openStream(String sql, List<Object> parameters, int fetchSize,
+      MapperFactory<R> mapperFactory) throws SQLException {
+    if (fetchSize <= 0) {
+      throw new IllegalArgumentException("Fetch size must be positive");
+    }
+    Dialect dialect = dialect();
+    Connection conn = getConnection();
+    boolean restoreAutoCommit = false;
+    PreparedStatement stmt = null;
+    try {
+      // e.g. PostgreSQL ignores the fetch size and buffers everything in auto-commit mode
+      if (dialect.cursorRequiresTransaction() && conn.getAutoCommit()) {
+        conn.setAutoCommit(false);
+        restoreAutoCommit = true;
+      }
+      flushDeferred(sql);
+      stmt = applyDeadline(conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY));
+      stmt.setFetchSize(dialect.streamingFetchSize(fetchSize));
+      SqlUtil.setParameters(stmt, parameters);
+      ResultSet rs = stmt.executeQuery();
+      return RowStream.of(conn, stmt, rs, mapperFactory.create(rs), restoreAutoCommit);
+    } catch (SQLException | RuntimeException e) {
+      try {
+        try {
+          if (stmt != null) {
+            stmt.close();
+          }
+        } finally {
+          if (restoreAutoCommit) {
+            conn.rollback();
+            conn.setAutoCommit(true);
+          }
+        }
+      } catch (SQLException closeFailure) {
+        e.addSuppressed(closeFailure);
+      } finally {
+        try {
+          conn.close();
+        } catch (SQLException closeFailure) {
+          e.addSuppressed(closeFailure);
+        }
+      }
+      throw e;
+    }
+  }
 
-      // Option 1: Return the entity as-is (faster)
-      return entity;
+  /**
+   * Prepare a statement, limiting it to the remaining request deadline when one is bound
+   */
+  protected PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+    flushDeferred(sql);
+    return applyDeadline(conn.prepareStatement(sql));
+  }
 
-      // Option 2: Fetch fresh from database (uncomment if you need DB-level changes)
-      // return findById(idValue);
+  protected PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys)
+      throws SQLException {
+    flushDeferred(sql);
+    return applyDeadline(conn.prepareStatement(sql, autoGeneratedKeys));
+  }
 
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException("Failed to access field during update", e);
+  /**
+   * Write the transaction's queued writes before a statement that touches one of their tables
+   */
+  private static void flushDeferred(String sql) throws SQLException {
+    UnitOfWork unitOfWork = UnitOfWork.current();
+    if (unitOfWork != null) {
+      unitOfWork.beforeStatement(sql);
     }
   }
 
-  private void setParameters(PreparedStatement stmt, T entity, List<String> columns)
-      throws SQLException, IllegalAccessException {
-    for (int i = 0; i < columns.size(); i++) {
-      Field field = meta.getField(columns.get(i));
-      field.setAccessible(true);
-      Object value = field.get(entity);
+  /**
+   * Unit of work of the current transaction if writes are deferred in it
+   */
+  private UnitOfWork unitOfWork() {
+    return deferredWrites || ConnectionHolder.isWriteBehind() ? UnitOfWork.bind() : null;
+  }
 
-      if (value != null) {
-        stmt.setObject(i + 1, value);
-      } else {
-        // Handle null values properly based on field type
-        stmt.setNull(i + 1, SqlUtil.getSqlType(field.getType()));
+  private PreparedStatement applyDeadline(PreparedStatement stmt) throws SQLException {
+    Deadline deadline = ConnectionHolder.getDeadline();
+    if (deadline != null) {
+      try {
+        deadline.apply(stmt);
+      } catch (SQLException e) {
+        stmt.close();
+        throw e;
       }
     }
+    return stmt;
+  }
+
+  /**
+   * Map every remaining row of the result set, reporting row count and mapping time to the
+   * statement's query metrics
+   */
+  <R> List<R> mapRows(PreparedStatement stmt, ResultSet rs, RowMapper<R> mapper)
+      throws SQLException {
+    long start = System.nanoTime();
+    List<R> result = new ArrayList<>();
+    while (rs.next()) {
+      result.add(mapper.map(rs));
+    }
+    QueryMetrics.recordFetch(stmt, result.size(), System.nanoTime() - start);
+    return result;
+  }
+
+  private <R> Optional<R> mapFirst(PreparedStatement stmt, ResultSet rs, RowMapper<R> mapper)
+      throws SQLException {
+    long start = System.nanoTime();
+    Optional<R> result = rs.next() ? Optional.of(mapper.map(rs)) : Optional.empty();
+    QueryMetrics.recordFetch(stmt, result.isPresent() ? 1 : 0, System.nanoTime() - start);
+    return result;
   }
 
   private boolean hasAutoGeneratedFields() {
@@ -321,11 +629,17 @@ public abstract class JdbcRepository<T, ID> {
   // Additional CRUD and batch operations
 
   public void deleteById(ID id) throws SQLException {
-    String sql = "DELETE FROM " + meta.table() + " WHERE " + meta.idField() + " = ?";
+    UnitOfWork unitOfWork = unitOfWork();
+    if (unitOfWork != null) {
+      unitOfWork.delete(this, id);
+      evictCachedId(id);
+      return;
+    }
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, statements.deleteById())) {
       stmt.setObject(1, id);
       int affectedRows = stmt.executeUpdate();
+      evictCachedId(id);
       if (affectedRows == 0) {
         throw new SQLException(
             "Delete failed, no rows affected. Entity with ID " + id + " may not exist.");
@@ -337,41 +651,69 @@ public abstract class JdbcRepository<T, ID> {
     validateFieldName(fieldName);
     String sql = "DELETE FROM " + meta.table() + " WHERE " + fieldName + " = ?";
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, sql)) {
       stmt.setObject(1, value);
       return stmt.executeUpdate();
+    } finally {
+      evictAllCached();
     }
   }
 
   public List<T> findByField(String fieldName, Object value) throws SQLException {
     validateFieldName(fieldName);
     String sql = "SELECT * FROM " + meta.table() + " WHERE " + fieldName + " = ?";
-    List<T> result = new ArrayList<>();
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, sql)) {
       stmt.setObject(1, value);
       try (ResultSet rs = stmt.executeQuery()) {
-        while (rs.next()) {
-          result.add(mapRow(rs));
-        }
+        return mapRows(stmt, rs, rowMapper(rs));
+      }
+    }
+  }
+
+  /**
+   * Rows matching a field value, reading only the projected columns
+   */
+  public <P> List<P> findByField(String fieldName, Object value, Projection<P> projection)
+      throws SQLException {
+    validateFieldName(fieldName);
+    String sql = select(projection) + " WHERE " + fieldName + " = ?";
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, sql)) {
+      stmt.setObject(1, value);
+      try (ResultSet rs = stmt.executeQuery()) {
+        return mapRows(stmt, rs, projection.rowMapper(rs));
+      }
+    }
+  }
+
+  /**
+   * Rows matching a field value, with only the selected columns read
+   */
+  public List<T> findByField(String fieldName, Object value, FieldSelection fields)
+      throws SQLException {
+    validateFieldName(fieldName);
+    String sql = select(fields) + " WHERE " + fieldName + " = ?";
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, sql)) {
+      stmt.setObject(1, value);
+      try (ResultSet rs = stmt.executeQuery()) {
+        return mapRows(stmt, rs, rowMapper(rs));
       }
     }
-    return result;
   }
 
   public Optional<T> findOneByField(String fieldName, Object value) throws SQLException {
     validateFieldName(fieldName);
-    String sql = "SELECT * FROM " + meta.table() + " WHERE " + fieldName + " = ? LIMIT 1";
+    String sql = dialect().limitOne(
+        "SELECT * FROM " + meta.table() + " WHERE " + fieldName + " = ?");
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, sql)) {
       stmt.setObject(1, value);
       try (ResultSet rs = stmt.executeQuery()) {
-        if (rs.next()) {
-          return Optional.of(mapRow(rs));
-        }
+        return mapFirst(stmt, rs, rowMapper(rs));
       }
     }
-    return Optional.empty();
   }
 
   // Batch operations
@@ -379,155 +721,211 @@ public abstract class JdbcRepository<T, ID> {
     if (entities == null || entities.isEmpty()) {
       return;
     }
+    UnitOfWork unitOfWork = unitOfWork();
+    if (unitOfWork != null) {
+      IdentityMap identities = identities();
+      List<Object> ids = new ArrayList<>(entities.size());
+      for (T entity : entities) {
+        unitOfWork.save(this, entity);
+        if (identities != null) {
+          identities.put(meta, entity);
+        }
+        ids.add(meta.getValue(entity, meta.idField()));
+      }
+      evictQueued(ids);
+      return;
+    }
+    saveAllNow(entities);
+  }
+
+  /**
+   * Save without queueing, also used to flush a {@link UnitOfWork}
+   */
+  void saveAllNow(Collection<T> entities) throws SQLException {
+    if (tracker != null) {
+      entities = saveTracked(entities);
+      if (entities.isEmpty()) {
+        return;
+      }
+    }
 
-    // Separate new entities from existing ones
+    boolean databaseId = meta.isDatabaseGenerated(meta.idField());
+    String upsert = databaseId ? null : statements.upsert(dialect());
+
+    // Separate new entities from existing ones; IDs known to the database or upsertable entities
+    // are sorted without a round trip per entity
     List<T> newEntities = new ArrayList<>();
     List<T> existingEntities = new ArrayList<>();
 
     for (T entity : entities) {
-      if (isNew(entity)) {
+      if (meta.getValue(entity, meta.idField()) == null) {
+        newEntities.add(requireAutoGeneratedId(entity));
+      } else if (databaseId || upsert != null) {
+        existingEntities.add(entity);
+      } else if (isNew(entity)) {
         newEntities.add(entity);
       } else {
         existingEntities.add(entity);
       }
     }
 
+    if (!existingEntities.isEmpty()) {
+      if (upsert != null) {
+        batchUpsert(existingEntities);
+      } else if (databaseId) {
+        // Rows that no longer exist are inserted with a fresh ID, as save() does
+        newEntities.addAll(batchUpdateMissing(existingEntities));
+      } else {
+        batchUpdate(existingEntities);
+      }
+    }
+
     // Batch insert new entities
     if (!newEntities.isEmpty()) {
       batchInsert(newEntities);
     }
-
-    // Batch update existing entities
-    if (!existingEntities.isEmpty()) {
-      batchUpdate(existingEntities);
-    }
   }
 
-  private void batchInsert(List<T> entities) throws SQLException {
-    if (entities.isEmpty()) {
-      return;
-    }
-
-    // STEP 1: Generate application-side values for all entities BEFORE building INSERT
+  /**
+   * Batch update the tracked entities, grouped by their set of changed columns, skipping unchanged
+   * ones
+   *
+   * @return the entities left for the regular path: untracked ones and those whose row is gone
+   */
+  private List<T> saveTracked(Collection<T> entities) throws SQLException {
+    DirtyTracker<T> current = tracker;
+    List<T> remaining = new ArrayList<>();
+    Map<BitSet, List<T>> bySignature = new LinkedHashMap<>();
     for (T entity : entities) {
-      generateApplicationValues(entity);
+      BitSet changed = current == null ? null : current.changes(entity);
+      if (changed == null) {
+        remaining.add(entity);
+      } else if (!changed.isEmpty()) {
+        bySignature.computeIfAbsent(changed, c -> new ArrayList<>()).add(entity);
+      }
     }
-
-    // STEP 2: Filter out only DATABASE-generated fields from batch insert
-    List<String> columns = meta.columns().stream()
-        .filter(col -> !meta.isDatabaseGenerated(col)) // Only exclude DB-generated
-        .collect(Collectors.toList());
-
-    if (columns.isEmpty()) {
-      throw new SQLException("No insertable columns found. All fields are database-generated.");
+    if (bySignature.isEmpty()) {
+      return remaining;
     }
+    BatchWriter<T> writer = batchWriter();
+    try (Connection conn = getConnection()) {
+      for (Map.Entry<BitSet, List<T>> group : bySignature.entrySet()) {
+        remaining.addAll(writer.update(conn, group.getValue(),
+            statements.partialUpdate(group.getKey())));
+      }
+    }
+    return remaining;
+  }
 
-    String columnNames = String.join(", ", columns);
-    String placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", "));
-    String sql =
-        "INSERT INTO " + meta.table() + " (" + columnNames + ") VALUES (" + placeholders + ")";
-
-    // STEP 3: Determine if we need generated keys (only for DB-generated fields)
-    boolean needsGeneratedKeys = !meta.getDatabaseGeneratedFields().isEmpty();
-
-    try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql,
-            needsGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS)) {
+  /**
+   * Track the columns of entities loaded or saved through this repository, so that {@link #save}
+   * and {@link #saveAll} update only the changed columns and skip unchanged entities. Off by
+   * default; costs one snapshot per loaded entity.
+   */
+  public void setDirtyTracking(boolean dirtyTracking) {
+    if (!dirtyTracking) {
+      tracker = null;
+    } else if (tracker == null) {
+      tracker = new DirtyTracker<>(meta);
+    }
+  }
 
-      for (T entity : entities) {
-        setParameters(stmt, entity, columns);
-        stmt.addBatch();
-      }
+  /**
+   * Keep the entities this repository loads or saves in the identity map of the current
+   * transaction, so repeated lookups of an ID within it return the same instance without a query.
+   * Off by default; has no effect outside transactions.
+   */
+  public void setIdentityMap(boolean identityMap) {
+    this.identityMap = identityMap;
+  }
 
-      int[] results = stmt.executeBatch();
+  /**
+   * Queue {@link #save}, {@link #saveAll} and {@link #deleteById} inside a transaction in its
+   * {@link UnitOfWork}, as every repository does in write-behind transactions. The entities are
+   * written once each, in their final state, when the transaction flushes or before the first
+   * statement touching this table; IDs generated by the database are only set by then, and a
+   * delete of a missing row fails at that point. Off by default; writes outside transactions are
+   * always immediate.
+   */
+  public void setDeferredWrites(boolean deferredWrites) {
+    this.deferredWrites = deferredWrites;
+  }
 
-      // STEP 4: Handle generated keys for batch operations (only DB-generated)
-      if (needsGeneratedKeys) {
-        handleBatchDatabaseGeneratedKeys(stmt, entities);
-      }
+  /**
+   * Write the writes queued in the current transaction now
+   */
+  public void flush() throws SQLException {
+    UnitOfWork unitOfWork = UnitOfWork.current();
+    if (unitOfWork != null) {
+      unitOfWork.flush();
+    }
+  }
 
-      // Check for failed inserts
-      for (int i = 0; i < results.length; i++) {
-        if (results[i] == Statement.EXECUTE_FAILED) {
-          throw new SQLException("Batch insert failed for entity at index " + i);
-        }
-      }
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException("Failed to access field during batch insert", e);
+  /**
+   * Number of entities per JDBC batch (or multi-row statement) written by {@link #saveAll}
+   */
+  public void setBatchSize(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be > 0");
     }
+    this.batchSize = batchSize;
   }
 
-  private void handleBatchDatabaseGeneratedKeys(PreparedStatement stmt, List<T> entities)
-      throws SQLException, IllegalAccessException {
+  /**
+   * Let {@link #saveAll} rewrite insert batches into multi-row {@code VALUES} statements where the
+   * dialect supports them
+   */
+  public void setMultiRowInsert(boolean multiRowInsert) {
+    this.multiRowInsert = multiRowInsert;
+  }
 
-    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-      int entityIndex = 0;
-      while (generatedKeys.next() && entityIndex < entities.size()) {
-        T entity = entities.get(entityIndex);
-
-        // Handle only database-generated fields
-        for (String autoGenField : meta.getDatabaseGeneratedFields()) {
-          Field field = meta.getField(autoGenField);
-          field.setAccessible(true);
-
-          AutoGenerated autoGenAnnotation = field.getAnnotation(AutoGenerated.class);
-          if (autoGenAnnotation != null) {
-            Object generatedValue = generateDatabaseValue(generatedKeys, field, autoGenAnnotation);
-            if (generatedValue != null) {
-              field.set(entity, generatedValue);
-            }
-          }
-        }
-        entityIndex++;
-      }
-    }
+  /**
+   * Chunked writer with this repository's batch settings, for bulk writes on an explicit
+   * connection or with progress reporting
+   */
+  public BatchWriter<T> batchWriter() throws SQLException {
+    return new BatchWriter<>(this, dialect())
+        .chunkSize(batchSize)
+        .multiRowInsert(multiRowInsert);
   }
 
-  private void batchUpdate(List<T> entities) throws SQLException {
+  private void batchInsert(List<T> entities) throws SQLException {
     if (entities.isEmpty()) {
       return;
     }
-
-    List<String> updateColumns = meta.columns().stream()
-        .filter(col -> !col.equals(meta.idField()))
-        .collect(Collectors.toList());
-
-    if (updateColumns.isEmpty()) {
-      return; // Nothing to update
+    BatchWriter<T> writer = batchWriter();
+    try (Connection conn = getConnection()) {
+      writer.insert(conn, entities);
     }
+  }
 
-    String setClause = updateColumns.stream()
-        .map(col -> col + " = ?")
-        .collect(Collectors.joining(", "));
-
-    String sql =
-        "UPDATE " + meta.table() + " SET " + setClause + " WHERE " + meta.idField() + " = ?";
-
-    try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-      for (T entity : entities) {
-        // Set update parameters
-        setParameters(stmt, entity, updateColumns);
+  private void batchUpdate(List<T> entities) throws SQLException {
+    List<T> missing = batchUpdateMissing(entities);
 
-        // Set WHERE clause parameter (ID)
-        Field idField = meta.getField(meta.idField());
-        idField.setAccessible(true);
-        stmt.setObject(updateColumns.size() + 1, idField.get(entity));
-        stmt.addBatch();
-      }
+    // Check for failed updates
+    if (!missing.isEmpty()) {
+      throw new SQLException("Batch update failed for entity at index "
+          + entities.indexOf(missing.get(0)) + ". Entity may not exist.");
+    }
+  }
 
-      int[] results = stmt.executeBatch();
+  /**
+   * Batch update the entities and return those whose row was not found
+   */
+  private List<T> batchUpdateMissing(List<T> entities) throws SQLException {
+    if (entities.isEmpty()) {
+      return new ArrayList<>();
+    }
+    BatchWriter<T> writer = batchWriter();
+    try (Connection conn = getConnection()) {
+      return writer.update(conn, entities);
+    }
+  }
 
-      // Check for failed updates
-      for (int i = 0; i < results.length; i++) {
-        if (results[i] == 0) {
-          throw new SQLException(
-              "Batch update failed for entity at index " + i + ". Entity may not exist.");
-        }
-      }
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException("Failed to access field during batch update", e);
+  private void batchUpsert(List<T> entities) throws SQLException {
+    BatchWriter<T> writer = batchWriter();
+    try (Connection conn = getConnection()) {
+      writer.upsert(conn, entities);
     }
   }
 
@@ -536,9 +934,8 @@ public abstract class JdbcRepository<T, ID> {
       return;
     }
 
-    String sql = "DELETE FROM " + meta.table() + " WHERE " + meta.idField() + " = ?";
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, statements.deleteById())) {
 
       for (ID id : ids) {
         stmt.setObject(1, id);
@@ -546,6 +943,7 @@ public abstract class JdbcRepository<T, ID> {
       }
 
       int[] results = stmt.executeBatch();
+      evictCachedIds(ids);
 
       // Optionally check if all deletes were successful
       for (int i = 0; i < results.length; i++) {
@@ -557,31 +955,137 @@ public abstract class JdbcRepository<T, ID> {
     }
   }
 
+  /**
+   * Delete queued IDs of a {@link UnitOfWork} in batches, failing like {@link #deleteById} when a
+   * row does not exist
+   */
+  void deleteAllNow(Collection<?> ids) throws SQLException {
+    List<?> idList = new ArrayList<>(ids);
+    try (Connection conn = getConnection()) {
+      for (int from = 0; from < idList.size(); from += batchSize) {
+        List<?> chunk = idList.subList(from, Math.min(from + batchSize, idList.size()));
+        try (PreparedStatement stmt = prepare(conn, statements.deleteById())) {
+          for (Object id : chunk) {
+            stmt.setObject(1, id);
+            stmt.addBatch();
+          }
+          int[] results = stmt.executeBatch();
+          evictCachedIds(chunk);
+          for (int i = 0; i < results.length; i++) {
+            if (results[i] == 0) {
+              throw new SQLException("Delete failed, no rows affected. Entity with ID "
+                  + chunk.get(i) + " may not exist.");
+            }
+          }
+        }
+      }
+    }
+  }
+
   public List<T> findAllByIds(Collection<ID> ids) throws SQLException {
     if (ids == null || ids.isEmpty()) {
       return new ArrayList<>();
     }
+    IdentityMap identities = identities();
+    EntityCache<T> cache = cache();
+    if (cache == null && identities == null) {
+      return loadAllByIds(ids);
+    }
 
-    String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
-    String sql =
-        "SELECT * FROM " + meta.table() + " WHERE " + meta.idField() + " IN (" + placeholders + ")";
-
-    List<T> result = new ArrayList<>();
-    try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+    // Serve what the transaction and the cache hold and fetch only the misses
+    List<T> result = new ArrayList<>(ids.size());
+    List<ID> misses = new ArrayList<>();
+    for (ID id : ids) {
+      T known = identities == null ? null : identities.get(meta, id);
+      T cached = known != null || cache == null ? null : cache.get(id);
+      if (known != null) {
+        result.add(known);
+      } else if (cached != null) {
+        result.add(canonical(identities, cached));
+      } else {
+        misses.add(id);
+      }
+    }
+    if (misses.isEmpty()) {
+      return result;
+    }
+    if (cache == null) {
+      result.addAll(loadAllByIds(misses));
+    } else {
+      long stamp = cache.stamp();
+      for (T entity : loadAllByIds(misses)) {
+        cache.put(entity, stamp);
+        result.add(entity);
+      }
+    }
+    return result;
+  }
 
-      int paramIndex = 1;
-      for (ID id : ids) {
-        stmt.setObject(paramIndex++, id);
+  private List<T> loadAllByIds(Collection<ID> ids) throws SQLException {
+    Dialect dialect = dialect();
+    String arrayType = dialect.arrayTypeName(meta.getField(meta.idField()).getType());
+
+    try (Connection conn = getConnection()) {
+      // One array parameter keeps a single cached plan however many IDs are asked for
+      if (arrayType != null) {
+        String sql = statements.selectAll() + " WHERE " + meta.idField() + " = ANY(?)";
+        try (PreparedStatement stmt = prepare(conn, sql)) {
+          stmt.setArray(1, conn.createArrayOf(arrayType, ids.toArray()));
+          try (ResultSet rs = stmt.executeQuery()) {
+            return mapRows(stmt, rs, rowMapper(rs));
+          }
+        }
       }
 
-      try (ResultSet rs = stmt.executeQuery()) {
-        while (rs.next()) {
-          result.add(mapRow(rs));
+      // Otherwise expand IN lists, split to stay under the dialect's bind parameter limit
+      List<ID> idList = new ArrayList<>(ids);
+      List<T> result = new ArrayList<>(idList.size());
+      int chunkSize = dialect.maxBindParameters();
+      for (int from = 0; from < idList.size(); from += chunkSize) {
+        List<ID> chunk = idList.subList(from, Math.min(from + chunkSize, idList.size()));
+        String sql = statements.selectAll() + " WHERE " + meta.idField() + " IN ("
+            + EntityStatements.placeholders(chunk.size()) + ")";
+        try (PreparedStatement stmt = prepare(conn, sql)) {
+          int paramIndex = 1;
+          for (ID id : chunk) {
+            stmt.setObject(paramIndex++, id);
+          }
+          try (ResultSet rs = stmt.executeQuery()) {
+            result.addAll(mapRows(stmt, rs, rowMapper(rs)));
+          }
         }
       }
+      return result;
     }
-    return result;
+  }
+
+  /**
+   * Load the plan's relations onto already fetched entities, with one query per relation and
+   * chunk of keys rather than one per entity
+   */
+  public void fetch(Collection<T> entities, FetchPlan<T> plan) throws SQLException {
+    if (entities == null || entities.isEmpty()) {
+      return;
+    }
+    if (plan.type() != meta.type()) {
+      throw new IllegalArgumentException("Fetch plan is for " + plan.type().getSimpleName()
+          + ", not " + meta.type().getSimpleName());
+    }
+    Dialect dialect = dialect();
+    try (Connection conn = getConnection()) {
+      plan.load(this, conn, dialect, entities);
+    }
+  }
+
+  /**
+   * Load the named relations onto already fetched entities, see {@link #fetch(Collection, FetchPlan)}
+   */
+  public void fetch(Collection<T> entities, String... relations) throws SQLException {
+    FetchPlan<T> plan = FetchPlan.of(meta.type());
+    for (String relation : relations) {
+      plan.include(relation);
+    }
+    fetch(entities, plan);
   }
 
   // Advanced query methods with multiple conditions
@@ -599,9 +1103,8 @@ public abstract class JdbcRepository<T, ID> {
 
     String sql = "SELECT * FROM " + meta.table() + " WHERE " + whereClause;
 
-    List<T> result = new ArrayList<>();
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, sql)) {
 
       int paramIndex = 1;
       for (Object value : conditions.values()) {
@@ -609,12 +1112,9 @@ public abstract class JdbcRepository<T, ID> {
       }
 
       try (ResultSet rs = stmt.executeQuery()) {
-        while (rs.next()) {
-          result.add(mapRow(rs));
-        }
+        return mapRows(stmt, rs, rowMapper(rs));
       }
     }
-    return result;
   }
 
   public int deleteByFields(Map<String, Object> conditions) throws SQLException {
@@ -633,7 +1133,7 @@ public abstract class JdbcRepository<T, ID> {
     String sql = "DELETE FROM " + meta.table() + " WHERE " + whereClause;
 
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, sql)) {
 
       int paramIndex = 1;
       for (Object value : conditions.values()) {
@@ -641,7 +1141,137 @@ public abstract class JdbcRepository<T, ID> {
       }
 
       return stmt.executeUpdate();
+    } finally {
+      evictAllCached();
+    }
+  }
+
+  /**
+   * Hit, miss and eviction counters of the entity cache, if this entity is cached
+   */
+  public Optional<EntityCache.Stats> getCacheStats() {
+    return Optional.ofNullable(cache()).map(EntityCache::stats);
+  }
+
+  /**
+   * Drop cached state that a write of the entity made stale and re-snapshot it if tracked
+   */
+  void afterWrite(T entity) {
+    evictCachedId(meta.getValue(entity, meta.idField()));
+    track(entity);
+    IdentityMap identities = identities();
+    if (identities != null) {
+      identities.put(meta, entity);
+    }
+  }
+
+  void afterWrite(List<T> entities) {
+    IdentityMap identities = identities();
+    EntityCache<T> cache = cache();
+    for (T entity : entities) {
+      Object id = meta.getValue(entity, meta.idField());
+      if (cache != null && id != null) {
+        cache.evict(id);
+      }
+      track(entity);
+      if (identities != null) {
+        identities.put(meta, entity);
+      }
+    }
+    QueryResultCache.shared().invalidate(meta.table());
+  }
+
+  private T track(T entity) {
+    DirtyTracker<T> current = tracker;
+    return current == null ? entity : current.track(entity);
+  }
+
+  /**
+   * Entity mapper for a result set of this repository, taking snapshots when tracking is on.
+   * Complete rows of entities the transaction already knows map to the known instance.
+   */
+  private RowMapper<T> rowMapper(ResultSet rs) throws SQLException {
+    EntityRowMapper<T> mapper = new EntityRowMapper<>(meta, rs.getMetaData());
+    IdentityMap identities = identities();
+    if (identities != null && mapper.isComplete()) {
+      return row -> canonical(identities, mapper.map(row));
+    }
+    DirtyTracker<T> current = tracker;
+    return current == null ? mapper : row -> current.track(mapper.map(row));
+  }
+
+  /**
+   * The instance the transaction already knows for the entity's ID, or else the entity itself,
+   * registered and tracked
+   */
+  private T canonical(IdentityMap identities, T entity) {
+    T known = identities == null ? null : identities.putIfAbsent(meta, entity);
+    return known != null ? known : track(entity);
+  }
+
+  /**
+   * Entity cache of this repository, or the one another repository created for the entity later,
+   * so writes through any repository evict what the cached ones read
+   */
+  private EntityCache<T> cache() {
+    EntityCache<T> current = cache;
+    return current != null ? current : EntityCache.existing(meta);
+  }
+
+  /**
+   * Identity map of the current transaction if this repository uses one
+   */
+  private IdentityMap identities() {
+    return identityMap ? IdentityMap.bind() : null;
+  }
+
+  private void evictCachedId(Object id) {
+    evictCachedIds(Collections.singletonList(id));
+  }
+
+  /**
+   * Evict the written rows, invalidating cached queries on the table once for the whole batch
+   */
+  private void evictCachedIds(Collection<?> ids) {
+    EntityCache<T> cache = cache();
+    IdentityMap identities = IdentityMap.current();
+    for (Object id : ids) {
+      if (cache != null && id != null) {
+        cache.evict(id);
+      }
+      if (identities != null) {
+        identities.remove(meta, id);
+      }
+    }
+    QueryResultCache.shared().invalidate(meta.table());
+  }
+
+  /**
+   * Evict the rows of queued saves. The transaction then bypasses the entity and query caches for
+   * this entity, so its reads run a statement, which flushes the queue first.
+   */
+  private void evictQueued(Collection<?> ids) {
+    EntityCache<T> cache = cache();
+    if (cache != null) {
+      for (Object id : ids) {
+        if (id != null) {
+          cache.evict(id);
+        }
+      }
+    }
+    QueryResultCache.shared().invalidate(meta.table());
+  }
+
+  private void evictAllCached() {
+    EntityCache<T> cache = cache();
+    if (cache != null) {
+      cache.evictAll();
+    }
+    IdentityMap identities = IdentityMap.current();
+    if (identities != null) {
+      identities.removeAll(meta);
     }
+    QueryResultCache.shared().invalidate(meta.table());
   }
 
   // Helper method to validate field names
@@ -653,11 +1283,34 @@ public abstract class JdbcRepository<T, ID> {
   }
 
   public Page<T> findAll(PageRequest pageRequest) throws SQLException {
-    // First, get total count
-    long totalElements = count();
+    return findPage(pageRequest, statements.selectAll(), this::rowMapper);
+  }
+
+  /**
+   * A page of rows, reading only the projected columns
+   */
+  public <P> Page<P> findAll(PageRequest pageRequest, Projection<P> projection)
+      throws SQLException {
+    return findPage(pageRequest, select(projection), projection::rowMapper);
+  }
+
+  /**
+   * A page of rows, with only the selected columns read
+   */
+  public Page<T> findAll(PageRequest pageRequest, FieldSelection fields) throws SQLException {
+    return findPage(pageRequest, select(fields), this::rowMapper);
+  }
+
+  private <R> Page<R> findPage(PageRequest pageRequest, String select,
+      MapperFactory<R> mapperFactory) throws SQLException {
+    PageRequest.CountMode countMode = pageRequest.getCountMode();
+
+    // First, get total count (exact pages derive hasNext from it, the others fetch one extra row)
+    long totalElements = countMode == PageRequest.CountMode.NONE ? -1 : total(countMode);
+    boolean exact = countMode == PageRequest.CountMode.EXACT;
 
     // Build paginated query
-    StringBuilder sql = new StringBuilder("SELECT * FROM " + meta.table());
+    StringBuilder sql = new StringBuilder(select);
 
     if (pageRequest.getSortBy() != null) {
       validateFieldName(pageRequest.getSortBy());
@@ -665,29 +1318,168 @@ public abstract class JdbcRepository<T, ID> {
       sql.append(pageRequest.isAscending() ? " ASC" : " DESC");
     }
 
-    sql.append(" LIMIT ? OFFSET ?");
-
-    List<T> content = new ArrayList<>();
+    Dialect dialect = dialect();
+    int limit = exact ? pageRequest.getSize() : pageRequest.getSize() + 1;
+    List<R> content;
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+        PreparedStatement stmt = prepare(conn, dialect.paginate(sql.toString()))) {
 
-      stmt.setInt(1, pageRequest.getSize());
-      stmt.setInt(2, pageRequest.getOffset());
+      dialect.bindPagination(stmt, 1, limit, pageRequest.getOffset());
 
       try (ResultSet rs = stmt.executeQuery()) {
-        while (rs.next()) {
-          content.add(mapRow(rs));
+        content = mapRows(stmt, rs, mapperFactory.create(rs));
+      }
+    }
+
+    if (exact) {
+      return new Page<>(content, pageRequest.getPage(), pageRequest.getSize(), totalElements);
+    }
+    boolean hasNext = content.size() > pageRequest.getSize();
+    if (hasNext) {
+      content.remove(content.size() - 1);
+    }
+    return new Page<>(content, pageRequest.getPage(), pageRequest.getSize(), totalElements, hasNext);
+  }
+
+  /**
+   * Keyset (seek) pagination: the {@code size} rows following {@code cursor} in ascending
+   * {@code sortBy, id} order. Unlike OFFSET paging the cost does not grow with depth, provided an
+   * index covers the sort column followed by the ID.
+   *
+   * @param cursor token from {@link KeysetPage#getNextCursor()}, or null for the first page
+   * @param sortBy column to order by, or null to order by ID only; its values must not be null
+   * @throws IllegalArgumentException if the cursor is invalid or belongs to another sort
+   */
+  public KeysetPage<T> findAfter(String cursor, int size, String sortBy) throws SQLException {
+    return findAfter(cursor, size, sortBy, true);
+  }
+
+  public KeysetPage<T> findAfter(String cursor, int size, String sortBy, boolean ascending)
+      throws SQLException {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size must be > 0");
+    }
+    String idColumn = meta.idField();
+    String sortColumn = sortBy == null ? idColumn : sortBy;
+    validateFieldName(sortColumn);
+    boolean byIdOnly = sortColumn.equals(idColumn);
+
+    KeysetCursor after = null;
+    if (cursor != null) {
+      after = KeysetCursor.decode(cursor);
+      if (!after.sortBy.equals(sortColumn) || after.ascending != ascending) {
+        throw new IllegalArgumentException("Cursor does not belong to this sort order");
+      }
+    }
+
+    Dialect dialect = dialect();
+    String cmp = ascending ? " > " : " < ";
+    String dir = ascending ? " ASC" : " DESC";
+    StringBuilder sql = new StringBuilder(statements.selectAll());
+    if (after != null) {
+      if (byIdOnly) {
+        sql.append(" WHERE ").append(idColumn).append(cmp).append("?");
+      } else if (dialect.supportsRowValueComparison()) {
+        sql.append(" WHERE (").append(sortColumn).append(", ").append(idColumn).append(")")
+            .append(cmp).append("(?, ?)");
+      } else {
+        sql.append(" WHERE (").append(sortColumn).append(cmp).append("? OR (")
+            .append(sortColumn).append(" = ? AND ").append(idColumn).append(cmp).append("?))");
+      }
+    }
+    sql.append(" ORDER BY ");
+    if (!byIdOnly) {
+      sql.append(sortColumn).append(dir).append(", ");
+    }
+    sql.append(idColumn).append(dir);
+
+    List<T> content;
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, dialect.paginate(sql.toString()))) {
+      int index = 1;
+      if (after != null) {
+        Object idValue = KeysetCursor.parse(after.idValue, meta.getField(idColumn).getType());
+        if (byIdOnly) {
+          stmt.setObject(index++, idValue);
+        } else {
+          Object sortValue = KeysetCursor.parse(after.sortValue,
+              meta.getField(sortColumn).getType());
+          stmt.setObject(index++, sortValue);
+          if (!dialect.supportsRowValueComparison()) {
+            stmt.setObject(index++, sortValue);
+          }
+          stmt.setObject(index++, idValue);
         }
       }
+      // One extra row tells whether another page follows
+      dialect.bindPagination(stmt, index, size + 1, 0);
+
+      try (ResultSet rs = stmt.executeQuery()) {
+        content = mapRows(stmt, rs, rowMapper(rs));
+      }
+    }
+
+    if (content.size() <= size) {
+      return new KeysetPage<>(content, null);
+    }
+    content.remove(size);
+    T last = content.get(size - 1);
+    String next = KeysetCursor.encode(sortColumn, ascending, meta.getValue(last, sortColumn),
+        meta.getValue(last, idColumn));
+    return new KeysetPage<>(content, next);
+  }
+
+  /**
+   * How long {@link PageRequest.CountMode#CACHED} pages reuse a count
+   */
+  public void setCountCacheTtl(Duration countCacheTtl) {
+    this.countCacheTtl = countCacheTtl;
+    this.cachedCount = null;
+  }
+
+  private long total(PageRequest.CountMode countMode) throws SQLException {
+    switch (countMode) {
+      case CACHED:
+        CachedCount cached = cachedCount;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.expiresAt() < 0) {
+          return cached.value();
+        }
+        long value = count();
+        cachedCount = new CachedCount(value, now + countCacheTtl.toNanos());
+        return value;
+      case ESTIMATED:
+        long estimate = estimatedCount();
+        return estimate >= 0 ? estimate : count();
+      default:
+        return count();
     }
+  }
 
-    return new Page<>(content, pageRequest.getPage(), pageRequest.getSize(), totalElements);
+  /**
+   * Row count from the database's statistics, or -1 when unavailable (e.g. never analyzed)
+   */
+  private long estimatedCount() throws SQLException {
+    String sql = dialect().estimatedCountSql();
+    if (sql == null) {
+      return -1;
+    }
+    try (Connection conn = getConnection();
+        PreparedStatement stmt = prepare(conn, sql)) {
+      stmt.setString(1, meta.table());
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (rs.next()) {
+          long estimate = rs.getLong(1);
+          return rs.wasNull() ? -1 : estimate;
+        }
+        return -1;
+      }
+    }
   }
 
   public long count() throws SQLException {
-    String sql = "SELECT COUNT(*) FROM " + meta.table();
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql);
+        PreparedStatement stmt = prepare(conn, statements.count());
         ResultSet rs = stmt.executeQuery()) {
 
       if (rs.next()) {
@@ -701,7 +1493,7 @@ public abstract class JdbcRepository<T, ID> {
     validateFieldName(fieldName);
     String sql = "SELECT COUNT(*) FROM " + meta.table() + " WHERE " + fieldName + " = ?";
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(sql)) {
+        PreparedStatement stmt = prepare(conn, sql)) {
 
       stmt.setObject(1, value);
       try (ResultSet rs = stmt.executeQuery()) {
@@ -735,21 +1527,33 @@ public abstract class JdbcRepository<T, ID> {
       Class<T> resultType) throws SQLException {
     QueryBuilder.ParsedQuery parsedQuery = QueryBuilder.parseNamedParameters(sql, namedParams);
 
-    List<T> results = new ArrayList<>();
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(parsedQuery.sql)) {
+        PreparedStatement stmt = prepare(conn, parsedQuery.sql)) {
 
       // Set parameters
       SqlUtil.setParameters(stmt, parsedQuery.parameters);
 
       try (ResultSet rs = stmt.executeQuery()) {
-        while (rs.next()) {
-          T mappedObject = mapRowToType(rs, resultType);
-          results.add(mappedObject);
-        }
+        return mapRows(stmt, rs, rowMapperFor(rs, resultType));
       }
     }
-    return results;
+  }
+
+  /**
+   * Stream a custom SELECT query with named parameters, see {@link #streamAll()}
+   *
+   * @param sql         SQL query with named parameters
+   * @param namedParams Map of parameter names to values
+   * @param resultType  Class to map results to
+   * @param fetchSize   Rows fetched per round trip
+   * @return Lazy stream of mapped objects, to be closed by the caller
+   * @throws SQLException if query execution fails
+   */
+  protected <T> Stream<T> streamCustomQuery(String sql, Map<String, Object> namedParams,
+      Class<T> resultType, int fetchSize) throws SQLException {
+    QueryBuilder.ParsedQuery parsedQuery = QueryBuilder.parseNamedParameters(sql, namedParams);
+    return openStream(parsedQuery.sql, parsedQuery.parameters, fetchSize,
+        rs -> rowMapperFor(rs, resultType));
   }
 
   /**
@@ -765,7 +1569,7 @@ public abstract class JdbcRepository<T, ID> {
     QueryBuilder.ParsedQuery parsedQuery = QueryBuilder.parseNamedParameters(sql, namedParams);
 
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(parsedQuery.sql)) {
+        PreparedStatement stmt = prepare(conn, parsedQuery.sql)) {
 
       SqlUtil.setParameters(stmt, parsedQuery.parameters);
 
@@ -791,35 +1595,33 @@ public abstract class JdbcRepository<T, ID> {
     QueryBuilder.ParsedQuery parsedQuery = QueryBuilder.parseNamedParameters(sql, namedParams);
 
     try (Connection conn = getConnection();
-        PreparedStatement stmt = conn.prepareStatement(parsedQuery.sql)) {
+        PreparedStatement stmt = prepare(conn, parsedQuery.sql)) {
 
       SqlUtil.setParameters(stmt, parsedQuery.parameters);
       return stmt.executeUpdate();
+    } finally {
+      evictAllCached(); // arbitrary SQL may touch any row
+      QueryResultCache.shared().invalidateTablesOf(sql);
     }
   }
 
   /**
-   * Map a ResultSet row to a specific type (DTO or Entity)
+   * Row mapper for a specific type (DTO or Entity)
    *
-   * @param rs         ResultSet positioned at current row
+   * @param rs         ResultSet the mapper will read
    * @param resultType Target class for mapping
-   * @return Mapped object instance
-   * @throws SQLException if mapping fails
+   * @return Mapper producing instances of the result type
+   * @throws SQLException if the result set metadata cannot be read
    */
-  private <T> T mapRowToType(ResultSet rs, Class<T> resultType) throws SQLException {
-    try {
-      // Check if it's the same as our entity type, use existing mapping
-      if (resultType.equals(meta.type())) {
-        return (T) mapRow(rs);
-      }
-
-      // For DTOs, use reflection-based mapping
-      return SqlUtil.mapRowToDto(rs, resultType);
-
-    } catch (Exception e) {
-      throw new SQLException("Failed to map row to type: " + resultType.getSimpleName(), e);
+  @SuppressWarnings("unchecked")
+  private <T> RowMapper<T> rowMapperFor(ResultSet rs, Class<T> resultType) throws SQLException {
+    // Check if it's the same as our entity type, use the compiled entity mapping
+    if (resultType.equals(meta.type())) {
+      return (RowMapper<T>) (RowMapper<?>) rowMapper(rs);
     }
-  }
 
+    // For DTOs, use the mapping plan compiled for this result set shape
+    return DtoMapper.of(resultType, rs.getMetaData());
+  }
 
 }
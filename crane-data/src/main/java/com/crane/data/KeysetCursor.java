@@ -0,0 +1,107 @@
+package com.crane.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque continuation token of a keyset page: the sort it belongs to plus the sort key and ID of
+ * the last row returned, encoded as URL-safe Base64
+ */
+final class KeysetCursor {
+
+  private static final int VERSION = 1;
+
+  final String sortBy;
+  final boolean ascending;
+  final String sortValue;
+  final String idValue;
+
+  private KeysetCursor(String sortBy, boolean ascending, String sortValue, String idValue) {
+    this.sortBy = sortBy;
+    this.ascending = ascending;
+    this.sortValue = sortValue;
+    this.idValue = idValue;
+  }
+
+  static String encode(String sortBy, boolean ascending, Object sortValue, Object idValue) {
+    if (sortValue == null || idValue == null) {
+      throw new IllegalStateException("Keyset pagination requires non-null sort and ID values");
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeUTF(sortBy);
+      out.writeBoolean(ascending);
+      out.writeUTF(format(sortValue));
+      out.writeUTF(format(idValue));
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // cannot happen in memory
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+  }
+
+  /**
+   * @throws IllegalArgumentException if the token is malformed
+   */
+  static KeysetCursor decode(String token) {
+    try (DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+      if (in.readByte() != VERSION) {
+        throw new IllegalArgumentException("Unsupported pagination cursor version");
+      }
+      return new KeysetCursor(in.readUTF(), in.readBoolean(), in.readUTF(), in.readUTF());
+    } catch (IOException | IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid pagination cursor", e);
+    }
+  }
+
+  private static String format(Object value) {
+    if (value instanceof java.sql.Timestamp timestamp) {
+      return timestamp.toLocalDateTime().toString();
+    }
+    if (value instanceof java.sql.Date date) {
+      return date.toLocalDate().toString();
+    }
+    return value.toString();
+  }
+
+  /**
+   * Turn a value written by {@link #encode} back into the field's type
+   */
+  static Object parse(String text, Class<?> type) {
+    try {
+      if (type == String.class) return text;
+      if (type == Long.class || type == long.class) return Long.valueOf(text);
+      if (type == Integer.class || type == int.class) return Integer.valueOf(text);
+      if (type == Short.class || type == short.class) return Short.valueOf(text);
+      if (type == Double.class || type == double.class) return Double.valueOf(text);
+      if (type == Float.class || type == float.class) return Float.valueOf(text);
+      if (type == Boolean.class || type == boolean.class) return Boolean.valueOf(text);
+      if (type == BigDecimal.class) return new BigDecimal(text);
+      if (type == BigInteger.class) return new BigInteger(text);
+      if (type == UUID.class) return UUID.fromString(text);
+      if (type == LocalDateTime.class) return LocalDateTime.parse(text);
+      if (type == LocalDate.class) return LocalDate.parse(text);
+      if (type == LocalTime.class) return LocalTime.parse(text);
+      if (type == Instant.class) return Instant.parse(text);
+      if (type == OffsetDateTime.class) return OffsetDateTime.parse(text);
+      if (type == java.sql.Timestamp.class) return java.sql.Timestamp.valueOf(LocalDateTime.parse(text));
+      if (type == java.sql.Date.class) return java.sql.Date.valueOf(LocalDate.parse(text));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Invalid pagination cursor", e);
+    }
+    throw new IllegalArgumentException("Keyset pagination does not support sorting on " + type.getName());
+  }
+}
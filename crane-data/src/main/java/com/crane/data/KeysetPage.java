@@ -0,0 +1,21 @@
+package com.crane.data;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) pagination, see {@link JdbcRepository#findAfter}
+ */
+public class KeysetPage<T> {
+  private final List<T> content;
+  private final String nextCursor;
+
+  public KeysetPage(List<T> content, String nextCursor) {
+    this.content = content;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<T> getContent() { return content; }
+  /** @return opaque token for the following page, or null on the last page */
+  public String getNextCursor() { return nextCursor; }
+  public boolean hasNext() { return nextCursor != null; }
+}
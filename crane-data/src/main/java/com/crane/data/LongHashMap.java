@@ -0,0 +1,69 @@
+package com.crane.data;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys, used to stitch relations on numeric
+ * IDs without boxing a key per row. Values must not be null.
+ */
+final class LongHashMap<V> {
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+  private int mask;
+
+  LongHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    for (int i = slot(key); ; i = (i + 1) & mask) {
+      Object value = values[i];
+      if (value == null || keys[i] == key) {
+        return (V) value;
+      }
+    }
+  }
+
+  void put(long key, V value) {
+    int i = slot(key);
+    while (values[i] != null && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    if (values[i] == null) {
+      size++;
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (size * 2 > keys.length) {
+      grow();
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private int slot(long key) {
+    long mixed = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential IDs
+    return (int) (mixed ^ (mixed >>> 32)) & mask;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void grow() {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new Object[oldValues.length * 2];
+    mask = keys.length - 1;
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        put(oldKeys[i], (V) oldValues[i]);
+      }
+    }
+  }
+}
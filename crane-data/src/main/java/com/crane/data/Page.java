@@ -8,20 +8,34 @@ public class Page<T> {
   private final int size;
   private final long totalElements;
   private final int totalPages;
+  private final boolean hasNext;
 
   public Page(List<T> content, int page, int size, long totalElements) {
+    this(content, page, size, totalElements,
+        page < (int) Math.ceil((double) totalElements / size) - 1);
+  }
+
+  /**
+   * @param totalElements total count, or -1 when it was not computed
+   * @param hasNext       whether another page follows, known independently of the total
+   */
+  public Page(List<T> content, int page, int size, long totalElements, boolean hasNext) {
     this.content = content;
     this.page = page;
     this.size = size;
     this.totalElements = totalElements;
-    this.totalPages = (int) Math.ceil((double) totalElements / size);
+    this.totalPages = totalElements < 0 ? -1 : (int) Math.ceil((double) totalElements / size);
+    this.hasNext = hasNext;
   }
 
   public List<T> getContent() { return content; }
   public int getPage() { return page; }
   public int getSize() { return size; }
+  /** @return the total count, or -1 if the page was requested without one */
   public long getTotalElements() { return totalElements; }
+  /** @return the number of pages, or -1 if the page was requested without a count */
   public int getTotalPages() { return totalPages; }
-  public boolean hasNext() { return page < totalPages - 1; }
+  public boolean isTotalKnown() { return totalElements >= 0; }
+  public boolean hasNext() { return hasNext; }
   public boolean hasPrevious() { return page > 0; }
-}
\ No newline at end of file
+}
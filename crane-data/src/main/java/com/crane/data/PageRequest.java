@@ -1,23 +1,52 @@
 package com.crane.data;
 
 public class PageRequest {
+
+  /**
+   * How {@link JdbcRepository#findAll(PageRequest)} obtains the page's total element count
+   */
+  public enum CountMode {
+    /** Run {@code SELECT COUNT(*)} for every page */
+    EXACT,
+    /** Skip the count; the page reports a total of -1 and only knows whether a next page exists */
+    NONE,
+    /** Exact count, reused for the repository's count cache TTL, so it may lag recent writes */
+    CACHED,
+    /** The database's planner statistics where the dialect has them, else an exact count */
+    ESTIMATED
+  }
+
   private final int page;
   private final int size;
   private final String sortBy;
   private final boolean ascending;
+  private final CountMode countMode;
 
   public PageRequest(int page, int size) {
     this(page, size, null, true);
   }
 
   public PageRequest(int page, int size, String sortBy, boolean ascending) {
+    this(page, size, sortBy, ascending, CountMode.EXACT);
+  }
+
+  public PageRequest(int page, int size, String sortBy, boolean ascending, CountMode countMode) {
     if (page < 0) throw new IllegalArgumentException("Page must be >= 0");
     if (size <= 0) throw new IllegalArgumentException("Size must be > 0");
+    if (countMode == null) throw new IllegalArgumentException("Count mode must not be null");
 
     this.page = page;
     this.size = size;
     this.sortBy = sortBy;
     this.ascending = ascending;
+    this.countMode = countMode;
+  }
+
+  /**
+   * Copy of this request with another count mode
+   */
+  public PageRequest withCount(CountMode countMode) {
+    return new PageRequest(page, size, sortBy, ascending, countMode);
   }
 
   public int getOffset() { return page * size; }
@@ -25,4 +54,5 @@ public class PageRequest {
   public int getSize() { return size; }
   public String getSortBy() { return sortBy; }
   public boolean isAscending() { return ascending; }
+  public CountMode getCountMode() { return countMode; }
 }
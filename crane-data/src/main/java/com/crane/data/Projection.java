@@ -0,0 +1,197 @@
+package com.crane.data;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A subset of an entity's columns, derived from the properties of a target type, so finders select
+ * only what the caller reads instead of {@code SELECT *}. The target is
+ *
+ * <ul>
+ *   <li>a record, built through its canonical constructor from its components,</li>
+ *   <li>an interface, whose getters ({@code getName()}, {@code isActive()} or {@code name()})
+ *   are served by a proxy,</li>
+ *   <li>or a class with a no-argument constructor, whose fields are set.</li>
+ * </ul>
+ *
+ * Properties are matched to the entity's fields by name, or to its column names.
+ *
+ * <pre>
+ * public record UserSummary(Long id, String name) {}
+ *
+ * List&lt;UserSummary&gt; users = userRepository.findByField("active", true,
+ *     Projection.of(UserSummary.class));
+ * </pre>
+ */
+public final class Projection<P> {
+
+  private static final Map<Class<?>, Projection<?>> PROJECTIONS = new ConcurrentHashMap<>();
+
+  private final Class<P> type;
+  private final List<String> properties;
+  private final Method[] getters; // interface projections only, aligned with properties
+  private final Map<Class<?>, String> selectLists = new ConcurrentHashMap<>();
+
+  private Projection(Class<P> type) {
+    this.type = type;
+    List<String> names = new ArrayList<>();
+    List<Method> methods = new ArrayList<>();
+    if (type.isRecord()) {
+      for (RecordComponent component : type.getRecordComponents()) {
+        names.add(component.getName());
+      }
+    } else if (type.isInterface()) {
+      for (Method method : type.getMethods()) {
+        if (Modifier.isAbstract(method.getModifiers()) && method.getParameterCount() == 0
+            && method.getReturnType() != void.class) {
+          names.add(propertyName(method));
+          methods.add(method);
+        }
+      }
+    } else {
+      for (Field field : type.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+          names.add(field.getName());
+        }
+      }
+    }
+    if (names.isEmpty()) {
+      throw new IllegalArgumentException(type.getName() + " declares no properties to project");
+    }
+    this.properties = List.copyOf(names);
+    this.getters = type.isInterface() ? methods.toArray(new Method[0]) : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <P> Projection<P> of(Class<P> type) {
+    return (Projection<P>) PROJECTIONS.computeIfAbsent(type, Projection::new);
+  }
+
+  public Class<P> type() {
+    return type;
+  }
+
+  /**
+   * Property names of the target, in declaration order
+   */
+  public List<String> properties() {
+    return properties;
+  }
+
+  /**
+   * Select list for the entity, e.g. {@code id, created_at AS createdAt}, built once per entity
+   *
+   * @throws IllegalArgumentException if a property matches none of the entity's columns
+   */
+  String selectList(EntityMeta<?> meta) {
+    return selectLists.computeIfAbsent(meta.type(), t -> buildSelectList(meta));
+  }
+
+  private String buildSelectList(EntityMeta<?> meta) {
+    Map<String, String> columnsByName = new HashMap<>();
+    for (String column : meta.columns()) {
+      columnsByName.put(column.toLowerCase(Locale.ROOT), column);
+      columnsByName.putIfAbsent(meta.getField(column).getName().toLowerCase(Locale.ROOT), column);
+    }
+    StringBuilder sb = new StringBuilder();
+    for (String property : properties) {
+      String column = columnsByName.get(property.toLowerCase(Locale.ROOT));
+      if (column == null) {
+        throw new IllegalArgumentException("Property '" + property + "' of "
+            + type.getSimpleName() + " matches no column of " + meta.type().getSimpleName());
+      }
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(column);
+      if (!column.equalsIgnoreCase(property)) {
+        sb.append(" AS ").append(property);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Mapper for a result set selected with {@link #selectList(EntityMeta)}
+   */
+  RowMapper<P> rowMapper(ResultSet rs) throws SQLException {
+    if (getters == null) {
+      return DtoMapper.of(type, rs.getMetaData());
+    }
+    ResultSetMetaData metaData = rs.getMetaData();
+    ColumnReader[] readers = new ColumnReader[getters.length];
+    for (int i = 0; i < readers.length; i++) {
+      readers[i] = ColumnConverters.reader(metaData.getColumnType(i + 1),
+          getters[i].getReturnType());
+    }
+    return row -> {
+      Object[] values = new Object[readers.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = readers[i].read(row, i + 1);
+      }
+      return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+          new Handler(values)));
+    };
+  }
+
+  private static String propertyName(Method method) {
+    String name = method.getName();
+    int prefix = name.startsWith("get") ? 3
+        : name.startsWith("is") && method.getReturnType() == boolean.class ? 2 : 0;
+    if (prefix == 0 || name.length() == prefix || !Character.isUpperCase(name.charAt(prefix))) {
+      return name;
+    }
+    return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+  }
+
+  /**
+   * Serves an interface projection's getters from one row's values
+   */
+  private final class Handler implements InvocationHandler {
+    private final Object[] values;
+
+    Handler(Object[] values) {
+      this.values = values;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      for (int i = 0; i < getters.length; i++) {
+        if (getters[i].equals(method)) {
+          return values[i];
+        }
+      }
+      if (method.isDefault()) {
+        return InvocationHandler.invokeDefault(proxy, method, args);
+      }
+      return switch (method.getName()) {
+        case "equals" -> proxy == args[0];
+        case "hashCode" -> System.identityHashCode(proxy);
+        case "toString" -> toString(values);
+        default -> throw new UnsupportedOperationException(method.toString());
+      };
+    }
+
+    private String toString(Object[] values) {
+      StringBuilder sb = new StringBuilder(type.getSimpleName()).append('[');
+      for (int i = 0; i < values.length; i++) {
+        sb.append(i == 0 ? "" : ", ").append(properties.get(i)).append('=').append(values[i]);
+      }
+      return sb.append(']').toString();
+    }
+  }
+}
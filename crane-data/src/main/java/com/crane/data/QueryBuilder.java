@@ -1,24 +1,25 @@
 package com.crane.data;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 public class QueryBuilder {
 
   private String sql;
   private final Map<String, Object> namedParams = new HashMap<>();
   private Class<?> resultType;
+  private int fetchSize = JdbcRepository.DEFAULT_FETCH_SIZE;
+  private Duration cacheTtl;
+  private Duration staleWindow;
   private final JdbcRepository<?, ?> repository;
 
-  // Pattern to match named parameters like :paramName
-  private static final Pattern NAMED_PARAM_PATTERN = Pattern.compile(":([a-zA-Z_][a-zA-Z0-9_]*)");
-
   QueryBuilder(JdbcRepository<?, ?> repository) {
     this.repository = repository;
   }
@@ -57,6 +58,45 @@ public class QueryBuilder {
     return this;
   }
 
+  /**
+   * Set the number of rows fetched per round trip by {@link #stream()}
+   *
+   * @param fetchSize Rows per round trip
+   * @return QueryBuilder for method chaining
+   */
+  public QueryBuilder fetchSize(int fetchSize) {
+    this.fetchSize = fetchSize;
+    return this;
+  }
+
+  /**
+   * Serve {@link #list()}, {@link #single()} and {@link #count()} from the
+   * {@link QueryResultCache}. An expired result is served for another {@code ttl} while it is
+   * reloaded in the background.
+   *
+   * @param ttl How long a result is fresh
+   * @return QueryBuilder for method chaining
+   */
+  public QueryBuilder cached(Duration ttl) {
+    return cached(ttl, ttl);
+  }
+
+  /**
+   * See {@link #cached(Duration)}
+   *
+   * @param ttl                  How long a result is fresh
+   * @param staleWhileRevalidate How long after that the stale result is served during a reload
+   * @return QueryBuilder for method chaining
+   */
+  public QueryBuilder cached(Duration ttl, Duration staleWhileRevalidate) {
+    if (ttl.isNegative() || ttl.isZero() || staleWhileRevalidate.isNegative()) {
+      throw new IllegalArgumentException("Cache durations must be positive");
+    }
+    this.cacheTtl = ttl;
+    this.staleWindow = staleWhileRevalidate;
+    return this;
+  }
+
   /**
    * Execute query and return list of results
    *
@@ -66,7 +106,27 @@ public class QueryBuilder {
   @SuppressWarnings("unchecked")
   public <T> List<T> list() throws SQLException {
     validateQuery();
-    return repository.executeCustomQuery(sql, namedParams, (Class<T>) resultType);
+    Class<T> type = (Class<T>) resultType;
+    if (cacheTtl == null) {
+      return repository.executeCustomQuery(sql, namedParams, type);
+    }
+    String query = sql;
+    Map<String, Object> params = new HashMap<>(namedParams);
+    return QueryResultCache.shared().get(query, params, type, cacheTtl, staleWindow,
+        () -> repository.executeCustomQuery(query, params, type));
+  }
+
+  /**
+   * Execute query and stream results lazily from a cursor instead of buffering them. The stream
+   * holds its connection until closed, so use it in a try-with-resources block.
+   *
+   * @return Lazy stream of mapped objects
+   * @throws SQLException if query execution fails
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Stream<T> stream() throws SQLException {
+    validateQuery();
+    return repository.streamCustomQuery(sql, namedParams, (Class<T>) resultType, fetchSize);
   }
 
   /**
@@ -106,7 +166,13 @@ public class QueryBuilder {
    */
   public Long count() throws SQLException {
     validateQuery();
-    return repository.executeCountQuery(sql, namedParams);
+    if (cacheTtl == null) {
+      return repository.executeCountQuery(sql, namedParams);
+    }
+    String query = sql;
+    Map<String, Object> params = new HashMap<>(namedParams);
+    return QueryResultCache.shared().get(query, params, Long.class, cacheTtl, staleWindow,
+        () -> Collections.singletonList(repository.executeCountQuery(query, params))).get(0);
   }
 
   /**
@@ -130,12 +196,9 @@ public class QueryBuilder {
     }
 
     // Validate that all named parameters in SQL have corresponding values
-    Matcher matcher = NAMED_PARAM_PATTERN.matcher(sql);
-    while (matcher.find()) {
-      String paramName = matcher.group(1);
-      if (!namedParams.containsKey(paramName)) {
-        throw new IllegalStateException("Missing parameter value for: " + paramName);
-      }
+    String missing = SqlTemplate.of(sql).firstMissing(namedParams);
+    if (missing != null) {
+      throw new IllegalStateException("Missing parameter value for: " + missing);
     }
   }
 
@@ -155,21 +218,7 @@ public class QueryBuilder {
   }
 
   static ParsedQuery parseNamedParameters(String sql, Map<String, Object> namedParams) {
-    List<Object> orderedParams = new ArrayList<>();
-    StringBuffer processedSql = new StringBuffer();
-
-    Matcher matcher = NAMED_PARAM_PATTERN.matcher(sql);
-    while (matcher.find()) {
-      String paramName = matcher.group(1);
-      Object paramValue = namedParams.get(paramName);
-      if (paramValue == null && !namedParams.containsKey(paramName)) {
-        throw new IllegalArgumentException("No value provided for parameter: " + paramName);
-      }
-      orderedParams.add(paramValue);
-      matcher.appendReplacement(processedSql, "?");
-    }
-    matcher.appendTail(processedSql);
-
-    return new ParsedQuery(processedSql.toString(), orderedParams);
+    SqlTemplate template = SqlTemplate.of(sql);
+    return new ParsedQuery(template.sql(), Arrays.asList(template.bind(namedParams)));
   }
 }
\ No newline at end of file
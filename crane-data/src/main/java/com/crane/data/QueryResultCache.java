@@ -0,0 +1,446 @@
+package com.crane.data;
+
+import com.crane.core.ConnectionHolder;
+import com.crane.core.transaction.TransactionSynchronization;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Results of {@link QueryBuilder#cached(Duration)} queries, keyed by normalized SQL, parameters and
+ * result type. Each entry is tagged with the repository tables its SQL mentions, and any write
+ * through a {@link JdbcRepository} on one of them evicts it (again after commit when written in a
+ * transaction, which meanwhile reads those tables from the database).
+ *
+ * <p>The cache is bounded by the estimated heap size of its results. When full it evicts the least
+ * recently used entries until a tenth of the budget is free. Lookups take no lock; only storing and
+ * evicting entries synchronize, to keep the size accounting and the table index consistent. An
+ * expired entry is still served during its stale window while a virtual thread reloads it on its
+ * own connection.
+ *
+ * <p>Cached results are shared between callers and must not be modified.
+ */
+public final class QueryResultCache {
+
+  public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+  private static final Logger LOGGER = LogManager.getLogger(QueryResultCache.class);
+  private static final QueryResultCache SHARED = new QueryResultCache();
+  private static final int SIZE_SAMPLE = 16;
+
+  /**
+   * Point-in-time counters of the cache
+   */
+  public record Stats(long hits, long staleHits, long misses, long refreshes, long evictions,
+                      int entries, long estimatedBytes) {
+  }
+
+  /**
+   * Runs the query on a miss or a background refresh
+   */
+  @FunctionalInterface
+  interface Loader<R> {
+    List<R> load() throws SQLException;
+  }
+
+  private record Key(String sql, Map<String, Object> params, Class<?> resultType) {
+  }
+
+  private record Access(Key key, long at) {
+  }
+
+  private static final class Entry {
+    final List<?> value;
+    final Set<String> tables;
+    final long bytes;
+    final long expiresAt;
+    final long staleUntil;
+    final AtomicBoolean refreshing = new AtomicBoolean();
+    volatile long lastAccess;
+
+    Entry(List<?> value, Set<String> tables, long bytes, long expiresAt, long staleUntil,
+        long now) {
+      this.value = value;
+      this.tables = tables;
+      this.bytes = bytes;
+      this.expiresAt = expiresAt;
+      this.staleUntil = staleUntil;
+      this.lastAccess = now;
+    }
+  }
+
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<String, Set<Key>> keysByTable = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+  private final Set<String> knownTables = ConcurrentHashMap.newKeySet();
+  private volatile long maxBytes = DEFAULT_MAX_BYTES;
+  private long bytes;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private QueryResultCache() {
+  }
+
+  public static QueryResultCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * Upper bound for the estimated size of all cached results, default 32 MB
+   */
+  public void setMaxBytes(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Cache size must be > 0");
+    }
+    this.maxBytes = maxBytes;
+    synchronized (this) {
+      shrink();
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    keysByTable.clear();
+    bytes = 0;
+  }
+
+  public Stats stats() {
+    synchronized (this) {
+      return new Stats(hits.sum(), staleHits.sum(), misses.sum(), refreshes.sum(), evictions.sum(),
+          entries.size(), bytes);
+    }
+  }
+
+  /**
+   * Make a repository's table known, so queries mentioning it are tagged with it
+   */
+  void register(String table) {
+    if (knownTables.add(normalizeTable(table))) {
+      clear(); // entries cached before were not tagged with the new table
+    }
+  }
+
+  <R> List<R> get(String sql, Map<String, Object> params, Class<R> resultType, Duration ttl,
+      Duration staleWindow, Loader<R> loader) throws SQLException {
+    Key key = new Key(normalize(sql), new TreeMap<>(params), resultType);
+    Set<String> tables = tablesOf(key.sql());
+    Pending pending = currentPending();
+    if (pending != null && !Collections.disjoint(pending.tables, tables)) {
+      return loader.load(); // this transaction wrote a table of the query
+    }
+
+    Entry entry = entries.get(key);
+    long now = System.nanoTime();
+    if (entry != null) {
+      entry.lastAccess = now;
+      if (now - entry.expiresAt < 0) {
+        hits.increment();
+        return cast(entry.value);
+      }
+      if (now - entry.staleUntil < 0) {
+        staleHits.increment();
+        if (entry.refreshing.compareAndSet(false, true)) {
+          refresh(key, tables, ttl, staleWindow, loader);
+        }
+        return cast(entry.value);
+      }
+    }
+
+    misses.increment();
+    long version = version(tables);
+    List<R> result = loader.load();
+    return cast(store(key, tables, version, result, ttl, staleWindow));
+  }
+
+  /**
+   * Evict every entry tagged with the table, now and, inside a transaction, after it commits
+   */
+  void invalidate(String table) {
+    String name = normalizeTable(table);
+    evictTable(name);
+    if (ConnectionHolder.isTransactional()) {
+      Pending pending = currentPending();
+      if (pending == null) {
+        pending = new Pending();
+        ConnectionHolder.bindResource(this, pending);
+        ConnectionHolder.registerSynchronization(pending);
+      }
+      pending.tables.add(name);
+    }
+  }
+
+  /**
+   * Evict entries of every known table the SQL mentions
+   */
+  void invalidateTablesOf(String sql) {
+    for (String table : tablesOf(sql)) {
+      invalidate(table);
+    }
+  }
+
+  private void refresh(Key key, Set<String> tables, Duration ttl, Duration staleWindow,
+      Loader<?> loader) {
+    Thread.ofVirtual().name("crane-query-refresh").start(() -> {
+      refreshes.increment();
+      long version = version(tables);
+      try (Connection conn = DataSourceProvider.getConnection()) {
+        ConnectionHolder.set(conn);
+        store(key, tables, version, loader.load(), ttl, staleWindow);
+      } catch (Exception e) {
+        LOGGER.warn("Failed to refresh cached query, dropping it: {}", key.sql(), e);
+        synchronized (this) {
+          remove(key);
+        }
+      } finally {
+        ConnectionHolder.clear();
+      }
+    });
+  }
+
+  private List<?> store(Key key, Set<String> tables, long version, List<?> result, Duration ttl,
+      Duration staleWindow) {
+    List<?> value = Collections.unmodifiableList(new ArrayList<>(result));
+    long now = System.nanoTime();
+    long expiresAt = now + ttl.toNanos();
+    Entry entry = new Entry(value, tables, estimateBytes(key, value), expiresAt,
+        expiresAt + staleWindow.toNanos(), now);
+    synchronized (this) {
+      remove(key);
+      if (version(tables) != version) {
+        return value; // a table written while the query ran may have made the result stale
+      }
+      entries.put(key, entry);
+      for (String table : tables) {
+        keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+      }
+      bytes += entry.bytes;
+      // Check again once indexed: an eviction that found no entry for the table skipped the lock
+      if (version(tables) != version) {
+        remove(key);
+      }
+      shrink();
+    }
+    return value;
+  }
+
+  private void evictTable(String table) {
+    tableVersions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+    if (!keysByTable.containsKey(table)) {
+      return; // nothing cached reads the table, the version bump stops in-flight loads
+    }
+    synchronized (this) {
+      Set<Key> keys = keysByTable.remove(table);
+      if (keys != null) {
+        for (Key key : keys) {
+          remove(key);
+        }
+      }
+    }
+  }
+
+  private long version(Set<String> tables) {
+    long sum = 0;
+    for (String table : tables) {
+      AtomicLong version = tableVersions.get(table);
+      sum += version == null ? 0 : version.get();
+    }
+    return sum;
+  }
+
+  /**
+   * Must hold the monitor
+   */
+  private void remove(Key key) {
+    Entry entry = entries.remove(key);
+    if (entry == null) {
+      return;
+    }
+    bytes -= entry.bytes;
+    for (String table : entry.tables) {
+      Set<Key> keys = keysByTable.get(table);
+      if (keys != null) {
+        keys.remove(key);
+        if (keys.isEmpty()) {
+          keysByTable.remove(table);
+        }
+      }
+    }
+  }
+
+  /**
+   * Evict the least recently used entries down to 90% of the budget once it is exceeded. Must hold
+   * the monitor.
+   */
+  private void shrink() {
+    if (bytes <= maxBytes) {
+      return;
+    }
+    long target = maxBytes - maxBytes / 10;
+    // Snapshot the access times, lookups keep updating them while this sorts
+    List<Access> byAccess = new ArrayList<>(entries.size());
+    entries.forEach((key, entry) -> byAccess.add(new Access(key, entry.lastAccess)));
+    byAccess.sort(Comparator.comparingLong(Access::at));
+    for (Access oldest : byAccess) {
+      if (bytes <= target) {
+        break;
+      }
+      remove(oldest.key());
+      evictions.increment();
+    }
+  }
+
+  private Pending currentPending() {
+    return ConnectionHolder.isTransactional() ? (Pending) ConnectionHolder.getResource(this) : null;
+  }
+
+  private Set<String> tablesOf(String sql) {
+    Set<String> tables = new HashSet<>();
+    for (String word : sql.toLowerCase(Locale.ROOT).split("[^a-z0-9_$]+")) {
+      if (knownTables.contains(word)) {
+        tables.add(word);
+      }
+    }
+    return tables;
+  }
+
+  private static String normalizeTable(String table) {
+    String name = table.toLowerCase(Locale.ROOT);
+    return name.substring(name.lastIndexOf('.') + 1);
+  }
+
+  /**
+   * Collapse whitespace outside of quoted literals and identifiers
+   */
+  static String normalize(String sql) {
+    StringBuilder sb = new StringBuilder(sql.length());
+    char quote = 0;
+    boolean space = false;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        sb.append(c);
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (Character.isWhitespace(c)) {
+        space = sb.length() > 0;
+      } else {
+        if (space) {
+          sb.append(' ');
+          space = false;
+        }
+        if (c == '\'' || c == '"') {
+          quote = c;
+        }
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Rough heap footprint of a result, extrapolated from the first rows
+   */
+  private static long estimateBytes(Key key, List<?> value) {
+    long overhead = 64 + 2L * key.sql().length() + 48L * key.params().size() + 16L * value.size();
+    int sample = Math.min(value.size(), SIZE_SAMPLE);
+    if (sample == 0) {
+      return overhead;
+    }
+    long sampled = 0;
+    for (int i = 0; i < sample; i++) {
+      sampled += estimateRow(value.get(i));
+    }
+    return overhead + sampled * value.size() / sample;
+  }
+
+  private static long estimateRow(Object row) {
+    if (row == null) {
+      return 0;
+    }
+    long size = estimateValue(row);
+    if (size >= 0) {
+      return size;
+    }
+    size = 16;
+    for (Class<?> type = row.getClass(); type != Object.class; type = type.getSuperclass()) {
+      for (Field field : type.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers())) {
+          continue;
+        }
+        size += 8;
+        if (!field.getType().isPrimitive() && field.trySetAccessible()) {
+          try {
+            long nested = estimateValue(field.get(row));
+            size += nested >= 0 ? nested : 32;
+          } catch (IllegalAccessException e) {
+            size += 32;
+          }
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Size of common leaf values, or -1 for anything to be walked field by field
+   */
+  private static long estimateValue(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof CharSequence text) {
+      return 40 + 2L * text.length();
+    }
+    if (value instanceof Number || value instanceof Boolean || value instanceof Character
+        || value instanceof Enum<?>) {
+      return 16;
+    }
+    if (value instanceof byte[] array) {
+      return 16 + array.length;
+    }
+    if (value instanceof Collection<?> || value instanceof Map<?, ?>) {
+      return 64;
+    }
+    return value.getClass().getName().startsWith("java.") ? 32 : -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <R> List<R> cast(List<?> value) {
+    return (List<R>) value;
+  }
+
+  /**
+   * Tables written by one transaction, evicted again once it commits
+   */
+  private final class Pending implements TransactionSynchronization {
+    private final Set<String> tables = new HashSet<>();
+
+    @Override
+    public void afterCommit() {
+      tables.forEach(QueryResultCache.this::evictTable);
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.crane.data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object
+ */
+@FunctionalInterface
+public interface RowMapper<R> {
+
+  R map(ResultSet rs) throws SQLException;
+}
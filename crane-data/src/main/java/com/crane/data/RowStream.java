@@ -0,0 +1,100 @@
+package com.crane.data;
+
+import com.crane.core.jdbc.QueryMetrics;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Lazily pulls rows from an open cursor. The statement, result set and connection belong to the
+ * stream and are released when it is closed or fully consumed.
+ */
+final class RowStream<R> extends Spliterators.AbstractSpliterator<R> {
+
+  private static final Logger LOGGER = LogManager.getLogger(RowStream.class);
+
+  private final Connection conn;
+  private final PreparedStatement stmt;
+  private final ResultSet rs;
+  private final RowMapper<R> mapper;
+  private final boolean restoreAutoCommit;
+  private long rows;
+  private long mappingNanos;
+  private boolean closed;
+
+  private RowStream(Connection conn, PreparedStatement stmt, ResultSet rs, RowMapper<R> mapper,
+      boolean restoreAutoCommit) {
+    super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+    this.conn = conn;
+    this.stmt = stmt;
+    this.rs = rs;
+    this.mapper = mapper;
+    this.restoreAutoCommit = restoreAutoCommit;
+  }
+
+  /**
+   * @param restoreAutoCommit whether auto-commit was switched off for the cursor and must be turned
+   *                          back on before the connection is closed
+   */
+  static <R> Stream<R> of(Connection conn, PreparedStatement stmt, ResultSet rs,
+      RowMapper<R> mapper, boolean restoreAutoCommit) {
+    RowStream<R> rows = new RowStream<>(conn, stmt, rs, mapper, restoreAutoCommit);
+    return StreamSupport.stream(rows, false).onClose(rows::close);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super R> action) {
+    if (closed) {
+      return false;
+    }
+    try {
+      if (!rs.next()) {
+        close();
+        return false;
+      }
+      long start = System.nanoTime();
+      R row = mapper.map(rs);
+      mappingNanos += System.nanoTime() - start;
+      rows++;
+      action.accept(row);
+      return true;
+    } catch (SQLException e) {
+      close();
+      throw new RuntimeException("Failed to read row " + (rows + 1) + " of stream", e);
+    }
+  }
+
+  void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    QueryMetrics.recordFetch(stmt, rows, mappingNanos);
+    try {
+      try {
+        stmt.close(); // closes the result set too
+      } finally {
+        if (restoreAutoCommit) {
+          conn.commit(); // read-only, just ends the cursor's transaction
+          conn.setAutoCommit(true);
+        }
+      }
+    } catch (SQLException e) {
+      LOGGER.warn("Failed to release streaming cursor", e);
+    } finally {
+      try {
+        conn.close();
+      } catch (SQLException e) {
+        LOGGER.warn("Failed to release streaming connection", e);
+      }
+    }
+  }
+}
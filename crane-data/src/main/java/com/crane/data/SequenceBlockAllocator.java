@@ -0,0 +1,183 @@
+package com.crane.data;
+
+import com.crane.core.ConnectionHolder;
+import com.crane.data.dialect.Dialect;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * HiLo allocator behind {@link com.crane.data.annotation.AutoGenerated.Strategy#SEQUENCE_BLOCK}.
+ * IDs are taken from an in-memory block with one atomic increment; only an exhausted block costs
+ * a round trip, reserving the next {@code blockSize} IDs. One allocator exists per sequence and is
+ * shared by every entity using it. Reservations are serialized with a {@link ReentrantLock} rather
+ * than a monitor, so a virtual thread waiting on the database does not pin its carrier.
+ *
+ * <p>Databases without sequences reserve blocks from a table, in a transaction of their own so a
+ * rollback cannot hand the same block out twice:
+ *
+ * <pre>
+ * CREATE TABLE crane_sequences (name VARCHAR(255) PRIMARY KEY, next_val BIGINT NOT NULL)
+ * </pre>
+ */
+final class SequenceBlockAllocator {
+
+  static final String TABLE = "crane_sequences";
+
+  private static final Map<String, SequenceBlockAllocator> ALLOCATORS = new ConcurrentHashMap<>();
+
+  private final String sequence;
+  private final int blockSize;
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile Block block = new Block(0, 0);
+
+  /**
+   * IDs {@code [next, end)}; {@code next} may run past {@code end} once the block is used up
+   */
+  private record Block(AtomicLong next, long end) {
+    Block(long start, long end) {
+      this(new AtomicLong(start), end);
+    }
+  }
+
+  private SequenceBlockAllocator(String sequence, int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size of sequence " + sequence + " must be > 0");
+    }
+    this.sequence = sequence;
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the sequence is already used with another block size
+   */
+  static SequenceBlockAllocator forSequence(String sequence, int blockSize) {
+    SequenceBlockAllocator allocator = ALLOCATORS.computeIfAbsent(sequence,
+        name -> new SequenceBlockAllocator(name, blockSize));
+    if (allocator.blockSize != blockSize) {
+      throw new IllegalArgumentException("Sequence " + sequence + " is used with block sizes "
+          + allocator.blockSize + " and " + blockSize);
+    }
+    return allocator;
+  }
+
+  /**
+   * Next ID, reserving a new block through the repository's connection when the current one is
+   * used up
+   */
+  long next(JdbcRepository<?, ?> repository) throws SQLException {
+    while (true) {
+      Block current = block;
+      long id = current.next().getAndIncrement();
+      if (id < current.end()) {
+        return id;
+      }
+      lock.lock();
+      try {
+        if (block == current) {
+          long start = Math.multiplyExact(reserve(repository), (long) blockSize);
+          block = new Block(start, start + blockSize);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Next high value of the sequence
+   */
+  private long reserve(JdbcRepository<?, ?> repository) throws SQLException {
+    // The caller is in the middle of a write on the bound connection, which must stay open
+    Connection bound = repository.getConnection();
+    Dialect dialect = repository.dialect();
+    String sql = dialect.nextSequenceValue(sequence);
+    if (sql != null) {
+      // Sequences are not transactional: the value stays reserved even if the caller rolls back
+      try (PreparedStatement stmt = repository.prepare(bound, sql);
+          ResultSet rs = stmt.executeQuery()) {
+        if (!rs.next()) {
+          throw new SQLException("Sequence " + sequence + " returned no value");
+        }
+        return rs.getLong(1);
+      }
+    }
+
+    if (!ConnectionHolder.isTransactional()) {
+      return reserveFromTable(bound);
+    }
+    if (!DataSourceProvider.isInitialized()) {
+      throw new IllegalStateException("Reserving IDs of " + sequence + " from " + TABLE
+          + " inside a transaction needs a separate connection from DataSourceProvider");
+    }
+    try (Connection conn = DataSourceProvider.getConnection()) {
+      return reserveFromTable(conn);
+    }
+  }
+
+  /**
+   * Increment and read the sequence row in a transaction of its own, on a connection in
+   * auto-commit mode
+   */
+  private long reserveFromTable(Connection conn) throws SQLException {
+    conn.setAutoCommit(false);
+    try {
+      long value = incrementRow(conn);
+      conn.commit();
+      return value;
+    } catch (SQLException | RuntimeException e) {
+      conn.rollback();
+      throw e;
+    } finally {
+      conn.setAutoCommit(true);
+    }
+  }
+
+  private long incrementRow(Connection conn) throws SQLException {
+    String update = "UPDATE " + TABLE + " SET next_val = next_val + 1 WHERE name = ?";
+    String select = "SELECT next_val FROM " + TABLE + " WHERE name = ?";
+    for (int attempt = 0; ; attempt++) {
+      try (PreparedStatement stmt = conn.prepareStatement(update)) {
+        stmt.setString(1, sequence);
+        if (stmt.executeUpdate() > 0) {
+          try (PreparedStatement query = conn.prepareStatement(select)) {
+            query.setString(1, sequence);
+            try (ResultSet rs = query.executeQuery()) {
+              rs.next();
+              return rs.getLong(1);
+            }
+          }
+        }
+      }
+      // First use of the sequence: create its row, unless a concurrent caller just did. The
+      // savepoint keeps the transaction usable after a duplicate key on databases that abort it
+      // on any error (PostgreSQL), so the UPDATE can be retried.
+      Savepoint savepoint = conn.setSavepoint();
+      try (PreparedStatement stmt = conn.prepareStatement(
+          "INSERT INTO " + TABLE + " (name, next_val) VALUES (?, 1)")) {
+        stmt.setString(1, sequence);
+        stmt.executeUpdate();
+        return 1;
+      } catch (SQLException e) {
+        if (attempt > 0 || !isConstraintViolation(e)) {
+          throw e;
+        }
+        conn.rollback(savepoint);
+      }
+    }
+  }
+
+  /**
+   * SQLState class 23, e.g. the primary key of a row inserted concurrently
+   */
+  private static boolean isConstraintViolation(SQLException e) {
+    String state = e.getSQLState();
+    return state != null && state.startsWith("23");
+  }
+}
@@ -0,0 +1,163 @@
+package com.crane.data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named-parameter SQL compiled once into positional SQL and the parameter name of each {@code ?}.
+ * Templates are cached by their raw SQL, so repeated queries neither scan nor rebuild the text.
+ *
+ * <p>The parser leaves string literals, quoted identifiers, comments and {@code ::type} casts
+ * untouched.
+ */
+final class SqlTemplate {
+
+  private static final int MAX_CACHED = 2048;
+  private static final Map<String, SqlTemplate> CACHE = new ConcurrentHashMap<>();
+
+  private final String sql;
+  private final String[] names;
+
+  private SqlTemplate(String sql, String[] names) {
+    this.sql = sql;
+    this.names = names;
+  }
+
+  static SqlTemplate of(String sql) {
+    SqlTemplate template = CACHE.get(sql);
+    if (template == null) {
+      template = parse(sql);
+      if (CACHE.size() >= MAX_CACHED) {
+        shrink();
+      }
+      CACHE.put(sql, template);
+    }
+    return template;
+  }
+
+  /**
+   * SQL with every named parameter replaced by {@code ?}
+   */
+  String sql() {
+    return sql;
+  }
+
+  /**
+   * Parameter names in placeholder order; a name used twice appears twice
+   */
+  String[] names() {
+    return names;
+  }
+
+  /**
+   * @return the first parameter without a value, or null when all are given
+   */
+  String firstMissing(Map<String, Object> params) {
+    for (String name : names) {
+      if (!params.containsKey(name)) {
+        return name;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Positional values for the placeholders
+   *
+   * @throws IllegalArgumentException if a parameter has no value
+   */
+  Object[] bind(Map<String, Object> params) {
+    Object[] values = new Object[names.length];
+    for (int i = 0; i < names.length; i++) {
+      Object value = params.get(names[i]);
+      if (value == null && !params.containsKey(names[i])) {
+        throw new IllegalArgumentException("No value provided for parameter: " + names[i]);
+      }
+      values[i] = value;
+    }
+    return values;
+  }
+
+  static SqlTemplate parse(String sql) {
+    StringBuilder out = null; // only allocated once a parameter is found
+    List<String> names = new ArrayList<>();
+    int copied = 0;
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = skipQuoted(sql, i, c);
+      } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? length : end + 1;
+      } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+      } else if (c == ':' && i + 1 < length && sql.charAt(i + 1) == ':') {
+        i += 2; // PostgreSQL cast
+      } else if (c == ':' && i + 1 < length && isNameStart(sql.charAt(i + 1))) {
+        int end = i + 2;
+        while (end < length && isNamePart(sql.charAt(end))) {
+          end++;
+        }
+        if (out == null) {
+          out = new StringBuilder(length);
+        }
+        out.append(sql, copied, i).append('?');
+        names.add(sql.substring(i + 1, end));
+        copied = end;
+        i = end;
+      } else {
+        i++;
+      }
+    }
+    if (out == null) {
+      return new SqlTemplate(sql, new String[0]);
+    }
+    out.append(sql, copied, length);
+    return new SqlTemplate(out.toString(), names.toArray(new String[0]));
+  }
+
+  /**
+   * Index after the closing quote; doubled quotes are escapes
+   */
+  private static int skipQuoted(String sql, int start, char quote) {
+    int i = start + 1;
+    while (i < sql.length()) {
+      if (sql.charAt(i) == quote) {
+        if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+          i += 2;
+          continue;
+        }
+        return i + 1;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isNameStart(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+  }
+
+  private static boolean isNamePart(char c) {
+    return isNameStart(c) || (c >= '0' && c <= '9');
+  }
+
+  /**
+   * Drop an arbitrary tenth of the cache; SQL built with inlined values would otherwise grow it
+   * without bound
+   */
+  private static void shrink() {
+    int toRemove = MAX_CACHED / 10;
+    Iterator<String> it = CACHE.keySet().iterator();
+    while (toRemove-- > 0 && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+}
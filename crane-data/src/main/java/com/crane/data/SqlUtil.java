@@ -2,6 +2,7 @@ package com.crane.data;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -19,6 +20,10 @@ public class SqlUtil {
     if (value == null || targetType.isAssignableFrom(value.getClass())) {
       return value;
     }
+    Object converted = ColumnConverters.convert(value, targetType);
+    if (converted != null) {
+      return converted;
+    }
 
     // Handle common type conversions
     try {
@@ -97,6 +102,20 @@ public class SqlUtil {
       if (targetType == LocalTime.class && value instanceof java.sql.Time) {
         return ((java.sql.Time) value).toLocalTime();
       }
+      if (value instanceof String str) { // ISO-8601 text, e.g. from uploads
+        if (targetType == LocalDateTime.class) {
+          return LocalDateTime.parse(str);
+        }
+        if (targetType == LocalDate.class) {
+          return LocalDate.parse(str);
+        }
+        if (targetType == LocalTime.class) {
+          return LocalTime.parse(str);
+        }
+        if (targetType == java.time.Instant.class) {
+          return java.time.Instant.parse(str);
+        }
+      }
 
       // Enum conversions
       if (targetType.isEnum()) {
@@ -119,6 +138,9 @@ public class SqlUtil {
       if (targetType == String.class && value instanceof UUID) {
         return value.toString();
       }
+      if (targetType == UUID.class && value instanceof byte[]) {
+        return Uuids.fromBytes((byte[]) value); // binary(16) column
+      }
 
     } catch (Exception e) {
       throw new RuntimeException("Failed to convert " + value.getClass().getSimpleName() +
@@ -130,6 +152,18 @@ public class SqlUtil {
         " to " + targetType.getSimpleName());
   }
 
+  /**
+   * An ID as a hash key: converted to the ID field's type, with a {@code byte[]} wrapped so that IDs
+   * with equal bytes are equal keys
+   */
+  static Object idKey(Object id, Class<?> idType) {
+    Object key = convertType(id, idType);
+    if (key instanceof byte[]) {
+      return ByteBuffer.wrap(((byte[]) key).clone()); // copied, the entity's array may change
+    }
+    return key;
+  }
+
   protected static int getSqlType(Class<?> javaType) {
     if (javaType == String.class) {
       return Types.VARCHAR;
@@ -191,93 +225,17 @@ public class SqlUtil {
 
 
   /**
-   * Map ResultSet to DTO using reflection Supports both field-based and constructor-based mapping
+   * Map the current row to a DTO, see {@link DtoMapper}. Row loops should obtain the mapper once
+   * with {@code DtoMapper.of} instead.
    */
   protected static <T> T mapRowToDto(ResultSet rs, Class<T> dtoClass) throws SQLException {
-    try {
-      // Try constructor-based mapping first (for records or DTOs with constructor)
-      T instance = tryConstructorMapping(rs, dtoClass);
-      if (instance != null) {
-        return instance;
-      }
-
-      // Fall back to field-based mapping
-      return tryFieldMapping(rs, dtoClass);
-
-    } catch (Exception e) {
-      throw new SQLException("Failed to map ResultSet to DTO: " + dtoClass.getSimpleName(), e);
-    }
-  }
-
-  /**
-   * Try constructor-based mapping (works well with records)
-   */
-  private static <T> T tryConstructorMapping(ResultSet rs, Class<T> dtoClass) {
-    try {
-      // Get ResultSet metadata to know available columns
-      var metaData = rs.getMetaData();
-      int columnCount = metaData.getColumnCount();
-
-      // Get constructors and try to find one that matches column count
-      var constructors = dtoClass.getDeclaredConstructors();
-
-      for (var constructor : constructors) {
-        if (constructor.getParameterCount() == columnCount) {
-          Object[] args = new Object[columnCount];
-          Class<?>[] paramTypes = constructor.getParameterTypes();
-
-          for (int i = 0; i < columnCount; i++) {
-            String columnName = metaData.getColumnName(i + 1);
-            Object value = rs.getObject(columnName);
-
-            if (value != null) {
-              // Convert type if necessary
-              args[i] = SqlUtil.convertType(value, paramTypes[i]);
-            } else {
-              args[i] = null;
-            }
-          }
-
-          constructor.setAccessible(true);
-          return (T) constructor.newInstance(args);
-        }
-      }
-    } catch (Exception e) {
-      // Constructor mapping failed, will try field mapping
-    }
-    return null;
-  }
-
-  /**
-   * Try field-based mapping
-   */
-  private static <T> T tryFieldMapping(ResultSet rs, Class<T> dtoClass) throws Exception {
-    T instance = dtoClass.getDeclaredConstructor().newInstance();
-    var metaData = rs.getMetaData();
-    int columnCount = metaData.getColumnCount();
-
-    for (int i = 1; i <= columnCount; i++) {
-      String columnName = metaData.getColumnName(i);
-      Object value = rs.getObject(columnName);
-
-      if (value != null) {
-        // Try to find field with matching name (case insensitive)
-        Field targetField = findFieldByName(dtoClass, columnName);
-        if (targetField != null) {
-          targetField.setAccessible(true);
-          Object convertedValue = SqlUtil.convertType(value, targetField.getType());
-          targetField.set(instance, convertedValue);
-        }
-      }
-    }
-
-    return instance;
+    return DtoMapper.of(dtoClass, rs.getMetaData()).map(rs);
   }
 
   /**
    * Find field by name (case insensitive, handles snake_case to camelCase conversion)
    */
-  private static Field findFieldByName(Class<?> clazz, String columnName) {
+  static Field findFieldByName(Class<?> clazz, String columnName) {
     // Try exact match first
     try {
       return clazz.getDeclaredField(columnName);
@@ -302,7 +260,7 @@ public class SqlUtil {
   /**
    * Convert snake_case to camelCase
    */
-  private static String toCamelCase(String snakeCase) {
+  static String toCamelCase(String snakeCase) {
     if (snakeCase == null || snakeCase.isEmpty()) {
       return snakeCase;
     }
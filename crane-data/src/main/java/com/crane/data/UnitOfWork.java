@@ -0,0 +1,332 @@
+package com.crane.data;
+
+import com.crane.core.ConnectionHolder;
+import com.crane.core.transaction.TransactionSynchronization;
+import com.crane.data.annotation.ManyToOne;
+import com.crane.data.annotation.OneToMany;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Write-behind queue of one transaction. Saves and deletes by ID of repositories in deferred mode,
+ * or of any repository in a transaction started with
+ * {@link com.crane.core.transaction.TransactionDefinition#withWriteBehind(boolean)}, are queued per
+ * entity type and written when the transaction flushes: before commit, after the handler of a
+ * transactional route, or before the first statement touching a queued table. Queueing a write
+ * evicts the entity and query caches like the write itself would, so the transaction's later
+ * reads of the table skip them, run a statement and flush.
+ *
+ * <p>A flush writes each type's saves through {@link JdbcRepository#saveAll} batches, referenced
+ * types ({@code @ManyToOne} targets, {@code @OneToMany} owners) first, then the deletes as batches
+ * in the reverse order. An entity saved several times is written once, in its final state. A
+ * {@code @ManyToOne} field set to an entity fills its null join column with that entity's ID, so
+ * children can reference parents whose IDs the database only generates at the flush.
+ *
+ * <p>NESTED transactions flush before setting and before releasing their savepoint, and a rollback
+ * to the savepoint discards what they queued.
+ */
+public final class UnitOfWork implements TransactionSynchronization {
+
+  private static final Logger LOGGER = LogManager.getLogger(UnitOfWork.class);
+  private static final Object KEY = UnitOfWork.class;
+
+  private static final LongAdder FLUSHES = new LongAdder();
+  private static final LongAdder WRITES = new LongAdder();
+  private static final LongAdder STATEMENTS = new LongAdder();
+
+  /**
+   * Totals over every flushed unit of work: the writes queued by the application and the
+   * statements actually sent for them
+   */
+  public record Stats(long flushes, long writes, long statements) {
+    public long savedRoundTrips() {
+      return Math.max(0, writes - statements);
+    }
+  }
+
+  private final Map<Class<?>, Queue<?>> queues = new LinkedHashMap<>();
+  private final Set<String> tables = new HashSet<>();
+  private boolean flushing;
+  private Exception failure;
+  private long writes;
+  private long statements;
+
+  /**
+   * Queued writes of one entity type
+   */
+  private static final class Queue<T> {
+    private final JdbcRepository<T, ?> repository;
+    private final Map<T, Boolean> saved = new IdentityHashMap<>();
+    private final List<T> saves = new ArrayList<>();
+    private final Set<Object> savedIds = new HashSet<>();
+    private final Map<Object, Object> deletes = new LinkedHashMap<>(); // key to ID
+
+    Queue(JdbcRepository<T, ?> repository) {
+      this.repository = repository;
+    }
+  }
+
+  private UnitOfWork() {
+  }
+
+  public static Stats stats() {
+    return new Stats(FLUSHES.sum(), WRITES.sum(), STATEMENTS.sum());
+  }
+
+  /**
+   * The unit of work of the current transaction, or null if there is none or nothing was queued
+   */
+  static UnitOfWork current() {
+    if (!ConnectionHolder.isTransactional()) {
+      return null;
+    }
+    return (UnitOfWork) ConnectionHolder.getResource(KEY);
+  }
+
+  /**
+   * The unit of work of the current transaction, created on first use, or null outside one
+   */
+  static UnitOfWork bind() {
+    if (!ConnectionHolder.isTransactional()) {
+      return null;
+    }
+    UnitOfWork unitOfWork = (UnitOfWork) ConnectionHolder.getResource(KEY);
+    if (unitOfWork == null) {
+      unitOfWork = new UnitOfWork();
+      ConnectionHolder.bindResource(KEY, unitOfWork);
+      ConnectionHolder.registerSynchronization(unitOfWork);
+    }
+    return unitOfWork;
+  }
+
+  <T> void save(JdbcRepository<T, ?> repository, T entity) throws SQLException {
+    Queue<T> queue = queue(repository);
+    Object id = key(repository.meta, repository.meta.getValue(entity, repository.meta.idField()));
+    if (id != null && queue.deletes.containsKey(id)) {
+      flush(); // Re-creating a deleted row: the DELETE must run first
+      queue = queue(repository);
+    }
+    writes++;
+    if (queue.saved.put(entity, Boolean.TRUE) == null) {
+      queue.saves.add(entity);
+      if (id != null) {
+        queue.savedIds.add(id);
+      }
+    }
+  }
+
+  <T> void delete(JdbcRepository<T, ?> repository, Object id) throws SQLException {
+    Queue<T> queue = queue(repository);
+    if (queue.savedIds.contains(key(repository.meta, id))) {
+      flush(); // The row may only exist once the save is written
+      queue = queue(repository);
+    }
+    writes++;
+    queue.deletes.putIfAbsent(key(repository.meta, id), id);
+  }
+
+  /**
+   * Write everything queued, see the class description
+   */
+  @Override
+  public void flush() throws SQLException {
+    if (failure != null) {
+      throw new SQLException("An earlier flush of this unit of work failed, roll back", failure);
+    }
+    if (flushing || queues.isEmpty()) {
+      return;
+    }
+    flushing = true;
+    long statementsBefore = statements;
+    try {
+      // Each queue is emptied once written. A failure keeps the rest queued and fails every later
+      // flush, at the latest the one before commit, even if the caller caught the exception.
+      List<Queue<?>> ordered = dependencyOrder();
+      for (Queue<?> queue : ordered) {
+        flushSaves(queue);
+      }
+      for (int i = ordered.size() - 1; i >= 0; i--) {
+        Queue<?> queue = ordered.get(i);
+        flushDeletes(queue);
+        queues.remove(queue.repository.meta.type());
+      }
+      tables.clear();
+    } catch (SQLException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      flushing = false;
+    }
+    long sent = statements - statementsBefore;
+    FLUSHES.increment();
+    WRITES.add(writes);
+    STATEMENTS.add(sent);
+    LOGGER.debug("Unit of work flushed {} writes in {} statements", writes, sent);
+    writes = 0;
+  }
+
+  /**
+   * Count a statement sent by a flush, or flush first if the statement touches a queued table so
+   * it sees the queued writes and runs after them
+   */
+  void beforeStatement(String sql) throws SQLException {
+    if (flushing) {
+      statements++;
+    } else if (!tables.isEmpty() && mentionsQueuedTable(sql)) {
+      flush();
+    }
+  }
+
+  @Override
+  public void afterCommit() {
+    clear();
+  }
+
+  @Override
+  public void afterRollback() {
+    clear();
+  }
+
+  /**
+   * A NESTED transaction flushes before its savepoint, so everything still queued was written
+   * inside it
+   */
+  @Override
+  public void afterRollbackToSavepoint() {
+    clear();
+  }
+
+  private void clear() {
+    queues.clear();
+    tables.clear();
+    writes = 0;
+    failure = null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> Queue<T> queue(JdbcRepository<T, ?> repository) {
+    Queue<T> queue = (Queue<T>) queues.get(repository.meta.type());
+    if (queue == null) {
+      queue = new Queue<>(repository);
+      queues.put(repository.meta.type(), queue);
+      tables.add(repository.meta.table().toLowerCase(Locale.ROOT));
+    }
+    return queue;
+  }
+
+  private static <T> void flushSaves(Queue<T> queue) throws SQLException {
+    if (queue.saves.isEmpty()) {
+      return;
+    }
+    EntityMeta<T> meta = queue.repository.meta;
+    for (T entity : queue.saves) {
+      fillJoinColumns(meta, entity);
+    }
+    queue.repository.saveAllNow(queue.saves);
+    queue.saves.clear();
+    queue.saved.clear();
+    queue.savedIds.clear();
+  }
+
+  private static void flushDeletes(Queue<?> queue) throws SQLException {
+    if (!queue.deletes.isEmpty()) {
+      queue.repository.deleteAllNow(queue.deletes.values());
+      queue.deletes.clear();
+    }
+  }
+
+  /**
+   * Set null join columns from the entities their {@code @ManyToOne} fields point to
+   */
+  private static <T> void fillJoinColumns(EntityMeta<T> meta, T entity) {
+    for (Field field : meta.relations().values()) {
+      ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+      if (manyToOne == null || meta.getValue(entity, manyToOne.joinColumn()) != null) {
+        continue;
+      }
+      try {
+        Object target = field.get(entity);
+        if (target != null) {
+          Object id = targetId(EntityParser.parse(field.getType()), target);
+          if (id != null) {
+            meta.setValue(entity, manyToOne.joinColumn(),
+                SqlUtil.convertType(id, meta.getField(manyToOne.joinColumn()).getType()));
+          }
+        }
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Cannot read relation " + field.getName(), e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E> Object targetId(EntityMeta<E> meta, Object target) {
+    return meta.getValue((E) target, meta.idField());
+  }
+
+  /**
+   * Queues ordered so that every type comes after the types it references. Cycles keep the order
+   * in which the types were first written.
+   */
+  private List<Queue<?>> dependencyOrder() {
+    Map<Class<?>, Set<Class<?>>> dependsOn = new HashMap<>();
+    for (Class<?> type : queues.keySet()) {
+      for (Field field : EntityParser.parse(type).relations().values()) {
+        if (field.isAnnotationPresent(ManyToOne.class)) {
+          dependsOn.computeIfAbsent(type, t -> new HashSet<>()).add(field.getType());
+        } else if (field.getGenericType() instanceof ParameterizedType parameterized
+            && parameterized.getActualTypeArguments()[0] instanceof Class<?> child
+            && field.isAnnotationPresent(OneToMany.class)) {
+          dependsOn.computeIfAbsent(child, t -> new HashSet<>()).add(type);
+        }
+      }
+    }
+    List<Queue<?>> ordered = new ArrayList<>(queues.size());
+    Set<Class<?>> visited = new HashSet<>();
+    for (Class<?> type : queues.keySet()) {
+      visit(type, dependsOn, visited, ordered);
+    }
+    return ordered;
+  }
+
+  private void visit(Class<?> type, Map<Class<?>, Set<Class<?>>> dependsOn, Set<Class<?>> visited,
+      List<Queue<?>> ordered) {
+    if (!visited.add(type)) {
+      return;
+    }
+    for (Class<?> dependency : dependsOn.getOrDefault(type, Collections.emptySet())) {
+      visit(dependency, dependsOn, visited, ordered);
+    }
+    Queue<?> queue = queues.get(type);
+    if (queue != null) {
+      ordered.add(queue);
+    }
+  }
+
+  private boolean mentionsQueuedTable(String sql) {
+    for (String word : sql.toLowerCase(Locale.ROOT).split("[^a-z0-9_$]+")) {
+      if (tables.contains(word)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Object key(EntityMeta<?> meta, Object id) {
+    return id == null ? null : SqlUtil.idKey(id, meta.getField(meta.idField()).getType());
+  }
+}
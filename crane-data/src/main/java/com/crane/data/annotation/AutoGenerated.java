@@ -20,6 +20,18 @@ public @interface AutoGenerated {
    */
   Strategy strategy() default Strategy.DATABASE;
 
+  /**
+   * Sequence reserving ID blocks for {@link Strategy#SEQUENCE_BLOCK}; defaults to
+   * {@code <table>_seq}
+   */
+  String sequence() default "";
+
+  /**
+   * IDs reserved per sequence call for {@link Strategy#SEQUENCE_BLOCK}. Every entity sharing a
+   * sequence must use the same size.
+   */
+  int blockSize() default 50;
+
   /**
    * Auto-generation strategies
    */
@@ -32,6 +44,20 @@ public @interface AutoGenerated {
     /**
      * Uses UUID generation
      */
-    UUID
+    UUID,
+
+    /**
+     * Uses time-ordered version 7 UUIDs, which keep primary key inserts at the end of the index.
+     * Applies to {@code UUID}, {@code String} and {@code byte[]} ({@code binary(16)}) fields.
+     */
+    UUID_V7,
+
+    /**
+     * Hands out numeric IDs from blocks of {@link #blockSize()} reserved with one call to a
+     * database sequence (value {@code n} reserves {@code n * blockSize} up to the next block), or
+     * to the {@code crane_sequences} table where the database has no sequences. Entities get
+     * their ID before the INSERT, so inserts need no generated keys and batch plainly.
+     */
+    SEQUENCE_BLOCK
   }
 }
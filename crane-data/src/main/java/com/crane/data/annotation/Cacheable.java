@@ -0,0 +1,26 @@
+package com.crane.data.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enables the second-level cache for an {@link Entity}: rows read by ID are kept in memory and
+ * served by {@code findById}/{@code findAllByIds} until they expire, are evicted or are written
+ * through a repository. Meant for reference data that is read far more often than it changes.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+
+  /**
+   * Maximum number of cached rows
+   */
+  int maxSize() default 10_000;
+
+  /**
+   * Seconds a row is served from the cache after it was read
+   */
+  long ttlSeconds() default 300;
+}
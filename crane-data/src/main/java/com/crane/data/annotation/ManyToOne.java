@@ -0,0 +1,26 @@
+package com.crane.data.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Reference to the entity whose ID is stored in one of this entity's columns. The field is not a
+ * column itself: it is only filled by a {@link com.crane.data.FetchPlan}, and writes go through
+ * the join column's own field.
+ *
+ * <pre>
+ * &#64;Column(name = "customer_id") Long customerId;
+ * &#64;ManyToOne(joinColumn = "customer_id") Customer customer;
+ * </pre>
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ManyToOne {
+
+  /**
+   * Column of this entity holding the referenced entity's ID
+   */
+  String joinColumn();
+}
@@ -0,0 +1,25 @@
+package com.crane.data.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Collection ({@code List} or {@code Set}) of the entities whose column {@link #mappedBy()} holds
+ * this entity's ID. The field is not a column: it is only filled by a
+ * {@link com.crane.data.FetchPlan}.
+ *
+ * <pre>
+ * &#64;OneToMany(mappedBy = "customer_id") List&lt;Order&gt; orders;
+ * </pre>
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OneToMany {
+
+  /**
+   * Column of the child entity referencing this entity's ID
+   */
+  String mappedBy();
+}
@@ -0,0 +1,271 @@
+package com.crane.data.dialect;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * SQL that differs between databases. The base class is the portable ANSI flavour, paging with
+ * {@code OFFSET ... FETCH}; subclasses override what their database does better or differently.
+ * Unknown databases get {@link #GENERIC}, which pages with {@code LIMIT ? OFFSET ?} instead.
+ */
+public class Dialect {
+
+  public static final Dialect GENERIC = new GenericDialect();
+  public static final Dialect ANSI = new Dialect();
+  public static final Dialect H2 = new H2Dialect();
+  public static final Dialect POSTGRES = new PostgresDialect();
+  public static final Dialect MYSQL = new MySqlDialect();
+
+  private static volatile Dialect configured;
+
+  protected Dialect() {
+  }
+
+  /**
+   * Force a dialect instead of detecting it, e.g. from {@code database.dialect} in the config
+   */
+  public static void configure(Dialect dialect) {
+    configured = dialect;
+  }
+
+  /**
+   * The configured dialect if any, otherwise the one matching the product name reported by the
+   * driver
+   */
+  public static Dialect detect(Connection connection) throws SQLException {
+    Dialect dialect = configured;
+    if (dialect != null) {
+      return dialect;
+    }
+    return forProductName(connection.getMetaData().getDatabaseProductName());
+  }
+
+  /**
+   * Look a dialect up by its configuration name
+   *
+   * @throws IllegalArgumentException for an unknown name
+   */
+  public static Dialect forName(String name) {
+    return switch (name.trim().toLowerCase(Locale.ROOT)) {
+      case "generic" -> GENERIC;
+      case "ansi", "oracle", "db2", "derby" -> ANSI;
+      case "h2" -> H2;
+      case "postgresql", "postgres" -> POSTGRES;
+      case "mysql", "mariadb" -> MYSQL;
+      default -> throw new IllegalArgumentException("Unknown SQL dialect: " + name);
+    };
+  }
+
+  /**
+   * Best guess from a JDBC URL, used before any connection exists (e.g. for driver properties)
+   */
+  public static Dialect forJdbcUrl(String jdbcUrl) {
+    if (jdbcUrl == null) {
+      return GENERIC;
+    }
+    String url = jdbcUrl.toLowerCase(Locale.ROOT);
+    if (url.startsWith("jdbc:h2:")) {
+      return H2;
+    }
+    if (url.startsWith("jdbc:postgresql:")) {
+      return POSTGRES;
+    }
+    if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+      return MYSQL;
+    }
+    if (url.startsWith("jdbc:oracle:") || url.startsWith("jdbc:db2:")
+        || url.startsWith("jdbc:derby:")) {
+      return ANSI;
+    }
+    return GENERIC;
+  }
+
+  public static Dialect forProductName(String productName) {
+    if (productName == null) {
+      return GENERIC;
+    }
+    String name = productName.toLowerCase(Locale.ROOT);
+    if (name.contains("h2")) {
+      return H2;
+    }
+    if (name.contains("postgres")) {
+      return POSTGRES;
+    }
+    if (name.contains("mysql") || name.contains("mariadb")) {
+      return MYSQL;
+    }
+    if (name.contains("oracle") || name.contains("db2") || name.contains("derby")) {
+      return ANSI; // no LIMIT
+    }
+    return GENERIC;
+  }
+
+  public String name() {
+    return "ansi";
+  }
+
+  /**
+   * Append a page clause to a SELECT. Bind its parameters with {@link #bindPagination}.
+   */
+  public String paginate(String sql) {
+    return sql + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+  }
+
+  /**
+   * Bind the parameters added by {@link #paginate}, starting at {@code index}
+   *
+   * @return the next free parameter index
+   */
+  public int bindPagination(PreparedStatement stmt, int index, int limit, long offset)
+      throws SQLException {
+    stmt.setLong(index, offset);
+    stmt.setInt(index + 1, limit);
+    return index + 2;
+  }
+
+  /**
+   * Limit a SELECT to its first row
+   */
+  public String limitOne(String sql) {
+    return sql + " FETCH FIRST 1 ROWS ONLY";
+  }
+
+  /**
+   * Whether {@code (a, b) > (?, ?)} row value comparisons are available, which lets keyset
+   * pagination use a composite index directly
+   */
+  public boolean supportsRowValueComparison() {
+    return false;
+  }
+
+  /**
+   * Query for the planner's row count estimate of a table, taking the table name as its only
+   * parameter, or null when the database exposes none
+   */
+  public String estimatedCountSql() {
+    return null;
+  }
+
+  /**
+   * Upper bound on the parameters of one statement; larger IN lists and multi-row inserts are split
+   */
+  public int maxBindParameters() {
+    return 2000;
+  }
+
+  /**
+   * Whether one INSERT may carry several rows, see {@link #multiRowInsert}
+   */
+  public boolean supportsMultiRowInsert() {
+    return false;
+  }
+
+  /**
+   * {@code INSERT ... VALUES (...), (...)} for {@code rows} rows, bound row by row in
+   * {@code columns} order
+   */
+  public String multiRowInsert(String table, List<String> columns, int rows) {
+    String row = "(" + placeholders(columns.size()) + ")";
+    StringBuilder sql = new StringBuilder(
+        "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ");
+    for (int i = 0; i < rows; i++) {
+      sql.append(i == 0 ? "" : ", ").append(row);
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Driver properties that let the driver rewrite JDBC batches into multi-row statements
+   */
+  public Map<String, String> batchRewriteProperties() {
+    return Map.of();
+  }
+
+  /**
+   * Whether a cursor only streams inside a transaction; with auto-commit on such drivers fetch the
+   * whole result set regardless of the fetch size
+   */
+  public boolean cursorRequiresTransaction() {
+    return false;
+  }
+
+  /**
+   * Fetch size to set on a streaming statement for the requested number of rows per round trip
+   */
+  public int streamingFetchSize(int fetchSize) {
+    return fetchSize;
+  }
+
+  /**
+   * Whether an INSERT can return generated columns itself, see {@link #returning}
+   */
+  public boolean supportsReturning() {
+    return false;
+  }
+
+  /**
+   * Make an INSERT return the given columns as a result set
+   *
+   * @throws UnsupportedOperationException if {@link #supportsReturning()} is false
+   */
+  public String returning(String insertSql, List<String> columns) {
+    throw new UnsupportedOperationException("RETURNING is not supported by the " + name() + " dialect");
+  }
+
+  /**
+   * SQL element type used to bind a collection of {@code javaType} as a single array parameter
+   * ({@code col = ANY(?)}), or null when such lists must be expanded into {@code IN (?, ...)}
+   */
+  public String arrayTypeName(Class<?> javaType) {
+    return null;
+  }
+
+  /**
+   * Query returning the next value of a sequence, or null when the database has no sequences
+   */
+  public String nextSequenceValue(String sequence) {
+    return "SELECT NEXT VALUE FOR " + sequence;
+  }
+
+  /**
+   * Whether {@link #upsert} is implemented
+   */
+  public boolean supportsUpsert() {
+    return false;
+  }
+
+  /**
+   * Single-statement insert-or-update keyed on the ID column. Parameters are bound in
+   * {@code columns} order.
+   *
+   * @param columns       every column to insert, including the ID
+   * @param updateColumns columns to overwrite when the row already exists
+   * @throws UnsupportedOperationException if the database has no native upsert
+   */
+  public String upsert(String table, String idColumn, List<String> columns,
+      List<String> updateColumns) {
+    throw new UnsupportedOperationException("Upsert is not supported by the " + name() + " dialect");
+  }
+
+  protected static String placeholders(int count) {
+    StringBuilder sb = new StringBuilder(count * 3);
+    for (int i = 0; i < count; i++) {
+      sb.append(i == 0 ? "?" : ", ?");
+    }
+    return sb.toString();
+  }
+
+  protected static String insertInto(String table, List<String> columns) {
+    return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+        + placeholders(columns.size()) + ")";
+  }
+
+  @Override
+  public String toString() {
+    return name();
+  }
+}
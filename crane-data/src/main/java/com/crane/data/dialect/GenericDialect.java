@@ -0,0 +1,35 @@
+package com.crane.data.dialect;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Fallback for databases without a dialect of their own. Pages with {@code LIMIT ? OFFSET ?},
+ * which most databases accept, including SQLite, and which the framework used before dialects
+ * existed; everything else is the portable base.
+ */
+class GenericDialect extends Dialect {
+
+  @Override
+  public String name() {
+    return "generic";
+  }
+
+  @Override
+  public String paginate(String sql) {
+    return sql + " LIMIT ? OFFSET ?";
+  }
+
+  @Override
+  public int bindPagination(PreparedStatement stmt, int index, int limit, long offset)
+      throws SQLException {
+    stmt.setInt(index, limit);
+    stmt.setLong(index + 1, offset);
+    return index + 2;
+  }
+
+  @Override
+  public String limitOne(String sql) {
+    return sql + " LIMIT 1";
+  }
+}
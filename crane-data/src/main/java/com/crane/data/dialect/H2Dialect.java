@@ -0,0 +1,40 @@
+package com.crane.data.dialect;
+
+import java.util.List;
+
+public class H2Dialect extends LimitOffsetDialect {
+
+  @Override
+  public String name() {
+    return "h2";
+  }
+
+  @Override
+  public int maxBindParameters() {
+    return 32767;
+  }
+
+  @Override
+  public String arrayTypeName(Class<?> javaType) {
+    return standardArrayType(javaType);
+  }
+
+  @Override
+  public String estimatedCountSql() {
+    return "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES"
+        + " WHERE UPPER(TABLE_NAME) = UPPER(?) AND TABLE_SCHEMA = SCHEMA()";
+  }
+
+  @Override
+  public boolean supportsUpsert() {
+    return true;
+  }
+
+  @Override
+  public String upsert(String table, String idColumn, List<String> columns,
+      List<String> updateColumns) {
+    // MERGE ... KEY updates every listed column of a matching row, so updateColumns is implied
+    return "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (" + idColumn
+        + ") VALUES (" + placeholders(columns.size()) + ")";
+  }
+}
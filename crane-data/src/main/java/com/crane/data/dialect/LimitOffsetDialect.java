@@ -0,0 +1,37 @@
+package com.crane.data.dialect;
+
+/**
+ * Base for databases paging with {@code LIMIT ? OFFSET ?} that also take multi-row inserts and row
+ * value comparisons
+ */
+abstract class LimitOffsetDialect extends GenericDialect {
+
+  @Override
+  public boolean supportsMultiRowInsert() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsRowValueComparison() {
+    return true;
+  }
+
+  /**
+   * Array element type shared by H2 and PostgreSQL for the usual ID types
+   */
+  static String standardArrayType(Class<?> javaType) {
+    if (javaType == Long.class || javaType == long.class) {
+      return "bigint";
+    }
+    if (javaType == Integer.class || javaType == int.class) {
+      return "integer";
+    }
+    if (javaType == String.class) {
+      return "varchar";
+    }
+    if (javaType == java.util.UUID.class) {
+      return "uuid";
+    }
+    return null;
+  }
+}
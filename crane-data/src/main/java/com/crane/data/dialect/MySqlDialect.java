@@ -0,0 +1,63 @@
+package com.crane.data.dialect;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MySQL and MariaDB
+ */
+public class MySqlDialect extends LimitOffsetDialect {
+
+  @Override
+  public String name() {
+    return "mysql";
+  }
+
+  @Override
+  public int maxBindParameters() {
+    return 65535;
+  }
+
+  @Override
+  public Map<String, String> batchRewriteProperties() {
+    return Map.of("rewriteBatchedStatements", "true");
+  }
+
+  @Override
+  public int streamingFetchSize(int fetchSize) {
+    // Connector/J buffers everything unless asked to stream row by row (or useCursorFetch is set)
+    return Integer.MIN_VALUE;
+  }
+
+  @Override
+  public String nextSequenceValue(String sequence) {
+    return null; // MySQL has no sequences, blocks come from the sequence table
+  }
+
+  @Override
+  public String estimatedCountSql() {
+    return "SELECT TABLE_ROWS FROM information_schema.TABLES"
+        + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+  }
+
+  @Override
+  public boolean supportsUpsert() {
+    return true;
+  }
+
+  @Override
+  public String upsert(String table, String idColumn, List<String> columns,
+      List<String> updateColumns) {
+    StringBuilder sql = new StringBuilder(insertInto(table, columns))
+        .append(" ON DUPLICATE KEY UPDATE ");
+    if (updateColumns.isEmpty()) {
+      return sql.append(idColumn).append(" = ").append(idColumn).toString();
+    }
+    // VALUES(col) rather than the 8.0.19 row alias, which MariaDB does not accept
+    for (int i = 0; i < updateColumns.size(); i++) {
+      String col = updateColumns.get(i);
+      sql.append(i == 0 ? "" : ", ").append(col).append(" = VALUES(").append(col).append(")");
+    }
+    return sql.toString();
+  }
+}
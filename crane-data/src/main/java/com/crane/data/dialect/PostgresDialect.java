@@ -0,0 +1,73 @@
+package com.crane.data.dialect;
+
+import java.util.List;
+import java.util.Map;
+
+public class PostgresDialect extends LimitOffsetDialect {
+
+  @Override
+  public String name() {
+    return "postgresql";
+  }
+
+  @Override
+  public int maxBindParameters() {
+    return 32767; // the driver sends the count as a signed 16-bit value
+  }
+
+  @Override
+  public Map<String, String> batchRewriteProperties() {
+    return Map.of("reWriteBatchedInserts", "true");
+  }
+
+  @Override
+  public boolean cursorRequiresTransaction() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsReturning() {
+    return true;
+  }
+
+  @Override
+  public String returning(String insertSql, List<String> columns) {
+    return insertSql + " RETURNING " + String.join(", ", columns);
+  }
+
+  @Override
+  public String arrayTypeName(Class<?> javaType) {
+    return standardArrayType(javaType);
+  }
+
+  @Override
+  public String nextSequenceValue(String sequence) {
+    return "SELECT nextval('" + sequence + "')";
+  }
+
+  @Override
+  public String estimatedCountSql() {
+    return "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+  }
+
+  @Override
+  public boolean supportsUpsert() {
+    return true;
+  }
+
+  @Override
+  public String upsert(String table, String idColumn, List<String> columns,
+      List<String> updateColumns) {
+    StringBuilder sql = new StringBuilder(insertInto(table, columns))
+        .append(" ON CONFLICT (").append(idColumn).append(")");
+    if (updateColumns.isEmpty()) {
+      return sql.append(" DO NOTHING").toString();
+    }
+    sql.append(" DO UPDATE SET ");
+    for (int i = 0; i < updateColumns.size(); i++) {
+      String col = updateColumns.get(i);
+      sql.append(i == 0 ? "" : ", ").append(col).append(" = EXCLUDED.").append(col);
+    }
+    return sql.toString();
+  }
+}
@@ -0,0 +1,86 @@
+package com.crane.data.dialect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The fallback for unknown databases, run against plain H2, which accepts its LIMIT/OFFSET paging
+ * as well as the ANSI dialect's OFFSET/FETCH
+ */
+class GenericDialectTest extends H2CompatibilitySupport {
+
+  GenericDialectTest() {
+    super(Dialect.GENERIC, null);
+  }
+
+  @Test
+  void unknownDatabasesAreGeneric() {
+    assertSame(Dialect.GENERIC, Dialect.forProductName("SQLite"));
+    assertSame(Dialect.GENERIC, Dialect.forProductName(null));
+    assertSame(Dialect.GENERIC, Dialect.forJdbcUrl("jdbc:sqlite:test.db"));
+    assertSame(Dialect.GENERIC, Dialect.forName("generic"));
+  }
+
+  @Test
+  void databasesWithoutLimitAreAnsi() {
+    assertSame(Dialect.ANSI, Dialect.forProductName("Oracle"));
+    assertSame(Dialect.ANSI, Dialect.forProductName("Apache Derby"));
+    assertSame(Dialect.ANSI, Dialect.forJdbcUrl("jdbc:oracle:thin:@localhost:1521/db"));
+    assertSame(Dialect.ANSI, Dialect.forName("ansi"));
+  }
+
+  @Test
+  void paginatesWithLimitOffset() throws SQLException {
+    assertEquals("SELECT id FROM item ORDER BY id LIMIT ? OFFSET ?",
+        dialect.paginate("SELECT id FROM item ORDER BY id"));
+    assertEquals("SELECT id FROM item LIMIT 1", dialect.limitOne("SELECT id FROM item"));
+    insertItemsOneByOne(10);
+    assertEquals(List.of(4L, 5L, 6L), page(3, 3));
+    assertEquals(List.of(10L), page(3, 9));
+    try (PreparedStatement stmt = conn.prepareStatement(
+        dialect.limitOne("SELECT id FROM item ORDER BY id"))) {
+      assertEquals(List.of(1L), ids(stmt));
+    }
+  }
+
+  @Test
+  void ansiPaginatesWithOffsetFetch() throws SQLException {
+    Dialect ansi = Dialect.ANSI;
+    insertItemsOneByOne(10);
+    try (PreparedStatement stmt = conn.prepareStatement(
+        ansi.paginate("SELECT id FROM item ORDER BY id"))) {
+      assertEquals(3, ansi.bindPagination(stmt, 1, 3, 3));
+      assertEquals(List.of(4L, 5L, 6L), ids(stmt));
+    }
+    try (PreparedStatement stmt = conn.prepareStatement(
+        ansi.limitOne("SELECT id FROM item ORDER BY id"))) {
+      assertEquals(List.of(1L), ids(stmt));
+    }
+  }
+
+  @Test
+  void keepsToPortableFeatures() {
+    assertFalse(dialect.supportsMultiRowInsert());
+    assertFalse(dialect.supportsRowValueComparison());
+    assertFalse(dialect.supportsReturning());
+    assertFalse(dialect.supportsUpsert());
+  }
+
+  private void insertItemsOneByOne(int count) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(
+        Dialect.insertInto("item", COLUMNS))) {
+      for (long id = 1; id <= count; id++) {
+        stmt.setLong(1, id);
+        stmt.setString(2, "item-" + id);
+        stmt.addBatch();
+      }
+      stmt.executeBatch();
+    }
+  }
+}
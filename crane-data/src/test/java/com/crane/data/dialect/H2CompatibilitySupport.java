@@ -0,0 +1,112 @@
+package com.crane.data.dialect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+/**
+ * Runs a dialect's SQL against an embedded H2 database in the compatibility mode of the dialect's
+ * database. H2 only emulates part of each database, so tests assert the generated SQL instead where
+ * a mode lacks the syntax or catalog a dialect relies on.
+ */
+abstract class H2CompatibilitySupport {
+
+  private static final AtomicInteger DATABASES = new AtomicInteger();
+
+  static final List<String> COLUMNS = List.of("id", "name");
+
+  protected final Dialect dialect;
+  private final String mode;
+  protected Connection conn;
+
+  H2CompatibilitySupport(Dialect dialect, String mode) {
+    this.dialect = dialect;
+    this.mode = mode;
+  }
+
+  @BeforeEach
+  void openDatabase() throws SQLException {
+    String url = "jdbc:h2:mem:dialect" + DATABASES.incrementAndGet()
+        + (mode == null ? "" : ";MODE=" + mode + ";DATABASE_TO_LOWER=TRUE");
+    conn = DriverManager.getConnection(url, "sa", "");
+    execute("CREATE TABLE item (id BIGINT PRIMARY KEY, name VARCHAR(32))");
+  }
+
+  @AfterEach
+  void closeDatabase() throws SQLException {
+    conn.close();
+  }
+
+  void execute(String sql) throws SQLException {
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute(sql);
+    }
+  }
+
+  /**
+   * Insert items 1..count, named after their ID, with one multi-row INSERT of the dialect
+   */
+  void insertItems(int count) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(
+        dialect.multiRowInsert("item", COLUMNS, count))) {
+      int index = 1;
+      for (long id = 1; id <= count; id++) {
+        stmt.setLong(index++, id);
+        stmt.setString(index++, "item-" + id);
+      }
+      assertEquals(count, stmt.executeUpdate());
+    }
+  }
+
+  /**
+   * Run an upsert of the dialect for one item
+   */
+  void upsert(List<String> updateColumns, long id, String name) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(
+        dialect.upsert("item", "id", COLUMNS, updateColumns))) {
+      stmt.setLong(1, id);
+      stmt.setString(2, name);
+      stmt.executeUpdate();
+    }
+  }
+
+  List<Long> ids(PreparedStatement stmt) throws SQLException {
+    List<Long> ids = new ArrayList<>();
+    try (ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        ids.add(rs.getLong(1));
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * IDs of one page of items in ID order, through the dialect's pagination clause
+   */
+  List<Long> page(int limit, long offset) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(
+        dialect.paginate("SELECT id FROM item ORDER BY id"))) {
+      assertEquals(3, dialect.bindPagination(stmt, 1, limit, offset));
+      return ids(stmt);
+    }
+  }
+
+  String name(long id) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement("SELECT name FROM item WHERE id = ?")) {
+      stmt.setLong(1, id);
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next() ? rs.getString(1) : null;
+      }
+    }
+  }
+}
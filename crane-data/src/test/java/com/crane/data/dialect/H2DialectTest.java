@@ -0,0 +1,75 @@
+package com.crane.data.dialect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class H2DialectTest extends H2CompatibilitySupport {
+
+  H2DialectTest() {
+    super(Dialect.H2, null);
+  }
+
+  @Test
+  void detectsH2() throws SQLException {
+    assertSame(Dialect.H2, Dialect.detect(conn));
+    assertSame(Dialect.H2, Dialect.forJdbcUrl("jdbc:h2:mem:test"));
+  }
+
+  @Test
+  void paginatesWithLimitOffset() throws SQLException {
+    insertItems(10);
+    assertEquals(List.of(4L, 5L, 6L), page(3, 3));
+    assertEquals(List.of(10L), page(3, 9));
+    try (PreparedStatement stmt = conn.prepareStatement(
+        dialect.limitOne("SELECT id FROM item ORDER BY id"))) {
+      assertEquals(List.of(1L), ids(stmt));
+    }
+  }
+
+  @Test
+  void upsertInsertsThenUpdates() throws SQLException {
+    upsert(List.of("name"), 1, "first");
+    assertEquals("first", name(1));
+    upsert(List.of("name"), 1, "second");
+    assertEquals("second", name(1));
+  }
+
+  @Test
+  void estimatedCountReadsTableStatistics() throws SQLException {
+    insertItems(5);
+    try (PreparedStatement stmt = conn.prepareStatement(dialect.estimatedCountSql())) {
+      stmt.setString(1, "item");
+      try (ResultSet rs = stmt.executeQuery()) {
+        assertTrue(rs.next());
+        assertTrue(rs.getLong(1) >= 0);
+      }
+    }
+  }
+
+  @Test
+  void bindsIdListsAsOneArray() throws SQLException {
+    insertItems(6);
+    try (PreparedStatement stmt = conn.prepareStatement(
+        "SELECT id FROM item WHERE id = ANY(?) ORDER BY id")) {
+      String type = dialect.arrayTypeName(Long.class);
+      stmt.setArray(1, conn.createArrayOf(type, new Object[] {2L, 5L}));
+      assertEquals(List.of(2L, 5L), ids(stmt));
+    }
+  }
+
+  @Test
+  void readsSequenceValues() throws SQLException {
+    execute("CREATE SEQUENCE item_seq");
+    try (PreparedStatement stmt = conn.prepareStatement(dialect.nextSequenceValue("item_seq"))) {
+      assertEquals(List.of(1L), ids(stmt));
+      assertEquals(List.of(2L), ids(stmt));
+    }
+  }
+}
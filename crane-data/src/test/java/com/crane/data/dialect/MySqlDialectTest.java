@@ -0,0 +1,66 @@
+package com.crane.data.dialect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MySqlDialectTest extends H2CompatibilitySupport {
+
+  MySqlDialectTest() {
+    super(Dialect.MYSQL, "MySQL");
+  }
+
+  @Test
+  void detectsMySqlAndMariaDb() {
+    assertSame(Dialect.MYSQL, Dialect.forJdbcUrl("jdbc:mysql://localhost/db"));
+    assertSame(Dialect.MYSQL, Dialect.forJdbcUrl("jdbc:mariadb://localhost/db"));
+    assertSame(Dialect.MYSQL, Dialect.forProductName("MariaDB"));
+  }
+
+  @Test
+  void paginatesWithLimitOffset() throws SQLException {
+    insertItems(10);
+    assertEquals(List.of(4L, 5L, 6L), page(3, 3));
+    assertEquals(List.of(10L), page(3, 9));
+    try (PreparedStatement stmt = conn.prepareStatement(
+        dialect.limitOne("SELECT id FROM item ORDER BY id"))) {
+      assertEquals(List.of(1L), ids(stmt));
+    }
+  }
+
+  @Test
+  void upsertInsertsThenUpdates() throws SQLException {
+    upsert(List.of("name"), 1, "first");
+    assertEquals("first", name(1));
+    upsert(List.of("name"), 1, "second");
+    assertEquals("second", name(1));
+  }
+
+  @Test
+  void upsertWithoutUpdateColumnsKeepsTheRow() throws SQLException {
+    upsert(List.of(), 1, "first");
+    upsert(List.of(), 1, "second");
+    assertEquals("first", name(1));
+  }
+
+  /**
+   * H2's INFORMATION_SCHEMA.TABLES has no TABLE_ROWS column, so only the statement is checked
+   */
+  @Test
+  void estimatedCountReadsInformationSchema() {
+    assertEquals("SELECT TABLE_ROWS FROM information_schema.TABLES"
+            + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+        dialect.estimatedCountSql());
+  }
+
+  @Test
+  void hasNoArraysOrSequences() {
+    assertNull(dialect.arrayTypeName(Long.class));
+    assertNull(dialect.nextSequenceValue("item_seq"));
+  }
+}
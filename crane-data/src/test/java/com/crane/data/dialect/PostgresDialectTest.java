@@ -0,0 +1,74 @@
+package com.crane.data.dialect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PostgresDialectTest extends H2CompatibilitySupport {
+
+  PostgresDialectTest() {
+    super(Dialect.POSTGRES, "PostgreSQL");
+  }
+
+  @Test
+  void detectsPostgres() {
+    assertSame(Dialect.POSTGRES, Dialect.forJdbcUrl("jdbc:postgresql://localhost/db"));
+    assertSame(Dialect.POSTGRES, Dialect.forProductName("PostgreSQL"));
+  }
+
+  @Test
+  void paginatesWithLimitOffset() throws SQLException {
+    insertItems(10);
+    assertEquals(List.of(4L, 5L, 6L), page(3, 3));
+    assertEquals(List.of(10L), page(3, 9));
+    try (PreparedStatement stmt = conn.prepareStatement(
+        dialect.limitOne("SELECT id FROM item ORDER BY id"))) {
+      assertEquals(List.of(1L), ids(stmt));
+    }
+  }
+
+  /**
+   * H2's PostgreSQL mode does not parse ON CONFLICT, so only the statement is checked
+   */
+  @Test
+  void upsertUsesOnConflict() {
+    assertEquals("INSERT INTO item (id, name) VALUES (?, ?)"
+            + " ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name",
+        dialect.upsert("item", "id", COLUMNS, List.of("name")));
+    assertEquals("INSERT INTO item (id, name) VALUES (?, ?) ON CONFLICT (id) DO NOTHING",
+        dialect.upsert("item", "id", COLUMNS, List.of()));
+  }
+
+  /**
+   * H2 has no pg_class or to_regclass in PostgreSQL mode, so only the statement is checked
+   */
+  @Test
+  void estimatedCountReadsPgClass() {
+    assertEquals("SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)",
+        dialect.estimatedCountSql());
+  }
+
+  @Test
+  void bindsIdListsAsOneArray() throws SQLException {
+    insertItems(6);
+    try (PreparedStatement stmt = conn.prepareStatement(
+        "SELECT id FROM item WHERE id = ANY(?) ORDER BY id")) {
+      String type = dialect.arrayTypeName(Long.class);
+      stmt.setArray(1, conn.createArrayOf(type, new Object[] {2L, 5L}));
+      assertEquals(List.of(2L, 5L), ids(stmt));
+    }
+  }
+
+  @Test
+  void readsSequenceValuesWithNextval() throws SQLException {
+    execute("CREATE SEQUENCE item_seq");
+    try (PreparedStatement stmt = conn.prepareStatement(dialect.nextSequenceValue("item_seq"))) {
+      assertEquals(List.of(1L), ids(stmt));
+      assertEquals(List.of(2L), ids(stmt));
+    }
+  }
+}